@@ -7,6 +7,7 @@ rem Get script directory
 set "SCRIPT_DIR=%~dp0"
 set "JAR_PATH=%SCRIPT_DIR%target\file-manager-1.0-SNAPSHOT.jar"
 set "LAST_DIR_FILE=%USERPROFILE%\.file_navigator_last_dir"
+set "CDS_ARCHIVE=%SCRIPT_DIR%target\file-manager.jsa"
 
 rem Check if jar exists
 if not exist "%JAR_PATH%" (
@@ -15,6 +16,10 @@ if not exist "%JAR_PATH%" (
     exit /b 1
 )
 
+rem Use the class-data-sharing archive from 'mvn package -Pcds' when present
+set "JAVA_OPTS="
+if exist "%CDS_ARCHIVE%" set "JAVA_OPTS=-XX:SharedArchiveFile="%CDS_ARCHIVE%" -Xlog:cds=off -Xlog:cds+dynamic=off"
+
 rem Function to change directory
 :change_directory
 if exist "%LAST_DIR_FILE%" (
@@ -26,13 +31,13 @@ goto :eof
 
 rem Main execution
 if "%~1"=="" (
-    java -jar "%JAR_PATH%" navigate
+    java %JAVA_OPTS% -jar "%JAR_PATH%" navigate
     call :change_directory
 ) else if "%~1"=="navigate" (
-    java -jar "%JAR_PATH%" %*
+    java %JAVA_OPTS% -jar "%JAR_PATH%" %*
     call :change_directory
 ) else (
-    java -jar "%JAR_PATH%" %*
+    java %JAVA_OPTS% -jar "%JAR_PATH%" %*
 )
 
 endlocal
\ No newline at end of file
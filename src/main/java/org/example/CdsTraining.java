@@ -0,0 +1,65 @@
+package org.example;
+
+import org.example.ui.FileManagerCLI;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Training run for the AppCDS archive built by the {@code cds} Maven profile. It runs the
+ * everyday commands once against a scratch directory, so that every class they load ends up in
+ * the archive, and loads the navigator's terminal classes without opening a terminal.
+ */
+public class CdsTraining {
+    private static final String[] TERMINAL_CLASSES = {
+            "org.example.ui.FileNavigator",
+            "com.googlecode.lanterna.terminal.DefaultTerminalFactory",
+            "com.googlecode.lanterna.terminal.ansi.UnixTerminal",
+            "com.googlecode.lanterna.screen.TerminalScreen",
+            "com.googlecode.lanterna.graphics.TextGraphics",
+            "com.googlecode.lanterna.input.KeyStroke",
+            "com.googlecode.lanterna.input.InputDecoder",
+            "com.googlecode.lanterna.TextColor$ANSI",
+    };
+
+    public static void main(String[] args) throws IOException {
+        Path scratch = Files.createTempDirectory("file-manager-cds");
+        // Keep the training away from the user's journals and caches
+        System.setProperty("filemanager.dataDir", scratch.resolve("data").toString());
+        System.setProperty("user.dir", scratch.toString());
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Files.createDirectories(scratch.resolve("dir/sub"));
+            Files.writeString(scratch.resolve("file.txt"), "training");
+            Files.writeString(scratch.resolve("dir/sub/nested.txt"), "training");
+
+            run("help");
+            run("copy", "file.txt", "copy.txt");
+            run("copy", "dir", "dir-copy");
+            run("move", "copy.txt", "moved.txt");
+            run("rename", "moved.txt", "renamed.txt");
+            run("compress", "dir", "fast");
+            run("delete", "dir-copy");
+            run("undo");
+
+            for (String name : TERMINAL_CLASSES) {
+                try {
+                    Class.forName(name, false, CdsTraining.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    stdout.println("Not archived, class missing: " + name);
+                }
+            }
+            run("delete", scratch.toString());
+        } finally {
+            System.setOut(stdout);
+        }
+    }
+
+    private static void run(String... args) {
+        new FileManagerCLI().run(args);
+    }
+}
@@ -1,10 +1,40 @@
 package org.example;
 
+import org.example.config.AppConfig;
 import org.example.ui.FileManagerCLI;
+import org.example.ui.FileManagerClient;
+import org.example.ui.FileManagerDaemon;
+
+import java.io.IOException;
+import java.util.Arrays;
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && "daemon".equals(args[0])) {
+            try {
+                new FileManagerDaemon(AppConfig.daemonSocket()).run();
+            } catch (IOException e) {
+                System.out.println("Daemon failed: " + e.getMessage());
+            }
+            return;
+        }
+        if (args.length > 0 && "client".equals(args[0])) {
+            String[] command = Arrays.copyOfRange(args, 1, args.length);
+            int status;
+            try {
+                status = FileManagerClient.send(AppConfig.daemonSocket(), command, System.in, System.out);
+                if (status == FileManagerClient.NOT_LISTENING) {
+                    System.out.println("No daemon listening on " + AppConfig.daemonSocket()
+                            + ". Start one with 'file-manager daemon'.");
+                    status = 1;
+                }
+            } catch (IOException e) {
+                System.out.println("Lost connection to the daemon: " + e.getMessage());
+                status = 1;
+            }
+            System.exit(status);
+        }
         FileManagerCLI cli = new FileManagerCLI();
         cli.run(args);
     }
-}
\ No newline at end of file
+}
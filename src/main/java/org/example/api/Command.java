@@ -1,5 +1,6 @@
 package org.example.api;
 
+import java.nio.file.Path;
 import java.util.List;
 
 /**
@@ -37,6 +38,31 @@ public interface Command {
         return false;
     }
 
+    /**
+     * @return what the last execution did, for the persistent undo journal; null if there is
+     * nothing that could be undone
+     */
+    default OperationRecord getRecord() {
+        return null;
+    }
+
+    /**
+     * @return everything the last execution did, undone together; by default the single
+     * {@link #getRecord() record}
+     */
+    default List<OperationRecord> getRecords() {
+        OperationRecord record = getRecord();
+        return record == null ? List.of() : List.of(record);
+    }
+
+    /**
+     * @return paths the command reads or writes. Commands whose paths do not overlap may run
+     * concurrently; an empty list means unknown, and the command then runs on its own.
+     */
+    default List<Path> affectedPaths() {
+        return List.of();
+    }
+
 //    /**
 //     * @return command usage description
 //     */
@@ -0,0 +1,47 @@
+package org.example.api;
+
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Speed versus ratio trade-off for archives. Content that is already compressed is stored
+ * as is regardless of the profile.
+ */
+public enum CompressionProfile {
+    FAST(Deflater.BEST_SPEED),
+    BALANCED(Deflater.DEFAULT_COMPRESSION),
+    MAX(Deflater.BEST_COMPRESSION);
+
+    private final int deflateLevel;
+
+    CompressionProfile(int deflateLevel) {
+        this.deflateLevel = deflateLevel;
+    }
+
+    public int getDeflateLevel() {
+        return deflateLevel;
+    }
+
+    /**
+     * @return true if name matches a profile, ignoring case
+     */
+    public static boolean isProfile(String name) {
+        for (CompressionProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the name does not match a profile
+     */
+    public static CompressionProfile fromName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown compression profile: " + name + " (use fast, balanced or max)");
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.api;
+
+import java.util.Locale;
+
+/**
+ * Checksum computed over file content while it is copied or compressed. CRC32C is hardware
+ * accelerated and catches corruption; SHA-256 is much slower but can be compared with digests
+ * published elsewhere.
+ */
+public enum DigestAlgorithm {
+    CRC32C("crc32c"),
+    SHA_256("sha256");
+
+    private final String label;
+
+    DigestAlgorithm(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the label does not match an algorithm
+     */
+    public static DigestAlgorithm fromLabel(String label) {
+        String wanted = label.toLowerCase(Locale.ROOT).replace("-", "");
+        for (DigestAlgorithm algorithm : values()) {
+            if (algorithm.label.equals(wanted)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown checksum: " + label + " (use crc32c or sha256)");
+    }
+}
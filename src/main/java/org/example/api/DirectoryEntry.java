@@ -0,0 +1,70 @@
+package org.example.api;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+
+/**
+ * Immutable snapshot of one directory entry, read with a single attribute lookup so that
+ * sorting and rendering never go back to the file system.
+ */
+public final class DirectoryEntry {
+    private final Path path;
+    private final String name;
+    private final boolean isDirectory;
+    private final long size;
+    private final FileTime lastModifiedTime;
+    private final String permissions;
+
+    public DirectoryEntry(Path path, boolean isDirectory, long size, FileTime lastModifiedTime, String permissions) {
+        this.path = path;
+        this.name = path.getFileName().toString();
+        this.isDirectory = isDirectory;
+        this.size = size;
+        this.lastModifiedTime = lastModifiedTime;
+        this.permissions = permissions;
+    }
+
+    /**
+     * Reads the attributes of path. Symbolic links are described by their target, like
+     * Files.isDirectory does, unless the link is dangling.
+     */
+    public static DirectoryEntry read(Path path) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = readAttributes(path);
+        } catch (IOException e) {
+            attrs = readAttributes(path, LinkOption.NOFOLLOW_LINKS);
+        }
+        String permissions = attrs instanceof PosixFileAttributes
+                ? PosixFilePermissions.toString(((PosixFileAttributes) attrs).permissions())
+                : "";
+        return new DirectoryEntry(path, attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime(), permissions);
+    }
+
+    private static BasicFileAttributes readAttributes(Path path, LinkOption... options) throws IOException {
+        try {
+            return Files.readAttributes(path, PosixFileAttributes.class, options);
+        } catch (UnsupportedOperationException e) {
+            return Files.readAttributes(path, BasicFileAttributes.class, options);
+        }
+    }
+
+    // Getters
+    public Path getPath() { return path; }
+    public String getName() { return name; }
+    public boolean isDirectory() { return isDirectory; }
+    public long getSize() { return size; }
+    public FileTime getLastModifiedTime() { return lastModifiedTime; }
+    public String getPermissions() { return permissions; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
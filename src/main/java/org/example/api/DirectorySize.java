@@ -0,0 +1,26 @@
+package org.example.api;
+
+/**
+ * Totals of everything below a directory.
+ */
+public class DirectorySize {
+    private final long bytes;
+    private final long files;
+    private final long directories;
+
+    public DirectorySize(long bytes, long files, long directories) {
+        this.bytes = bytes;
+        this.files = files;
+        this.directories = directories;
+    }
+
+    // Getters
+    public long getBytes() { return bytes; }
+    public long getFiles() { return files; }
+    public long getDirectories() { return directories; }
+
+    @Override
+    public String toString() {
+        return String.format("%dB in %d files, %d directories", bytes, files, directories);
+    }
+}
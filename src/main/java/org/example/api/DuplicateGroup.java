@@ -0,0 +1,31 @@
+package org.example.api;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Files with identical content.
+ */
+public class DuplicateGroup {
+    private final long size;
+    private final String digest;
+    private final List<Path> paths;
+
+    public DuplicateGroup(long size, String digest, List<Path> paths) {
+        this.size = size;
+        this.digest = digest;
+        this.paths = paths;
+    }
+
+    // Getters
+    public long getSize() { return size; }
+    public String getDigest() { return digest; }
+    public List<Path> getPaths() { return paths; }
+
+    /**
+     * @return bytes freed by keeping only one of the files
+     */
+    public long getWastedBytes() {
+        return size * (paths.size() - 1);
+    }
+}
@@ -1,8 +1,11 @@
 package org.example.api;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
 
 public class FileMetadata {
     private final long size;
@@ -13,9 +16,13 @@ public class FileMetadata {
     private final boolean isRegularFile;
     private final String permissions;
     private final Path path;
+    private final DirectorySize contents;
+    private final Object fileKey;
 
     public FileMetadata(Path path, BasicFileAttributes attrs, String permissions) {
         this.path = path;
+        this.contents = null;
+        this.fileKey = attrs.fileKey();
         this.size = attrs.size();
         this.creationTime = attrs.creationTime();
         this.lastModifiedTime = attrs.lastModifiedTime();
@@ -25,6 +32,40 @@ public class FileMetadata {
         this.permissions = permissions;
     }
 
+    private FileMetadata(FileMetadata metadata, DirectorySize contents) {
+        this.path = metadata.path;
+        this.contents = contents;
+        this.fileKey = metadata.fileKey;
+        this.size = contents.getBytes();
+        this.creationTime = metadata.creationTime;
+        this.lastModifiedTime = metadata.lastModifiedTime;
+        this.lastAccessTime = metadata.lastAccessTime;
+        this.isDirectory = metadata.isDirectory;
+        this.isRegularFile = metadata.isRegularFile;
+        this.permissions = metadata.permissions;
+    }
+
+    /**
+     * Reads the metadata of path with a single attribute lookup; the size of a directory is
+     * that of the directory itself.
+     */
+    public static FileMetadata read(Path path) throws IOException {
+        try {
+            PosixFileAttributes attrs = Files.readAttributes(path, PosixFileAttributes.class);
+            return new FileMetadata(path, attrs, attrs.permissions().toString());
+        } catch (UnsupportedOperationException e) {
+            return new FileMetadata(path, Files.readAttributes(path, BasicFileAttributes.class), "");
+        }
+    }
+
+    /**
+     * @return this metadata with the recursive totals of a directory, which then also give
+     * its size
+     */
+    public FileMetadata withContents(DirectorySize contents) {
+        return new FileMetadata(this, contents);
+    }
+
     // Getters
     public long getSize() { return size; }
     public FileTime getCreationTime() { return creationTime; }
@@ -32,14 +73,17 @@ public class FileMetadata {
     public boolean isDirectory() { return isDirectory; }
     public String getPermissions() { return permissions; }
     public Path getPath() { return path; }
+    public DirectorySize getContents() { return contents; }
+    /** The file system's identity of the file (device and inode on Unix), null if it has none */
+    public Object getFileKey() { return fileKey; }
 
     @Override
     public String toString() {
         return String.format(
-            "%s (%s) - %dB - Created: %s - Modified: %s - Permissions: %s",
+            "%s (%s) - %s - Created: %s - Modified: %s - Permissions: %s",
             path.getFileName(),
             isDirectory ? "Directory" : "File",
-            size,
+            contents != null ? contents : size + "B",
             creationTime,
             lastModifiedTime,
             permissions
@@ -2,6 +2,7 @@ package org.example.api;
 
 import org.example.exceptions.FileOperationException;
 import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Interface defining core file system operations with validation and monitoring capabilities.
@@ -21,13 +22,35 @@ public interface FileOperation {
     void moveFile(Path source, Path target) throws FileOperationException;
 
     /**
-     * Copies a file or directory from source to target location
+     * Copies a file or directory from source to target location.
+     * Directories are copied recursively with their attributes
      * @param source Path of the file/directory to copy
      * @param target Destination path
      * @throws FileOperationException if operation fails
      */
     void copyFile(Path source, Path target) throws FileOperationException;
 
+    /**
+     * Copies a file or directory and reports progress of large single file transfers
+     * @param progress receives bytes copied so far
+     * @throws FileOperationException if operation fails
+     */
+    default void copyFile(Path source, Path target, TransferProgress progress) throws FileOperationException {
+        copyFile(source, target);
+    }
+
+    /**
+     * Copies a file or directory and computes a digest of every regular file from the bytes as
+     * they stream through, so that the source is read only once
+     * @param algorithm digest to compute, or null for none
+     * @param verify read every copied file back, past the page cache where the file system
+     * allows it, and fail if it differs from its source; implies CRC32C without an algorithm
+     * @return counts of what was copied and the digests by source path
+     * @throws FileOperationException if operation fails or a copied file does not verify
+     */
+    OperationResult copyFile(Path source, Path target, TransferProgress progress, DigestAlgorithm algorithm,
+                             boolean verify) throws FileOperationException;
+
     /**
      * Renames a file or directory
      * @param source Path of the file/directory to rename
@@ -37,11 +60,12 @@ public interface FileOperation {
     void renameFile(Path source, String newName) throws FileOperationException;
 
     /**
-     * Deletes a file or directory
+     * Deletes a file or directory, including everything below a directory
      * @param source Path of the file/directory to delete
+     * @return counts of the removed files, directories and bytes
      * @throws FileOperationException if operation fails
      */
-    void deleteFile(Path source) throws FileOperationException;
+    OperationResult deleteFile(Path source) throws FileOperationException;
 
     /**
      * Simulates an operation without actually performing it
@@ -63,9 +87,49 @@ public interface FileOperation {
     void compressFile(Path source) throws FileOperationException;
 
     /**
-     * Gets file metadata for given path
+     * Compresses file into zip file, choosing store or deflate per entry
+     * @param profile deflate level used for entries that are worth compressing
+     * @throws FileOperationException if operation fails
+     */
+    default void compressFile(Path source, CompressionProfile profile) throws FileOperationException {
+        compressFile(source);
+    }
+
+    /**
+     * Compresses file into zip file and computes a digest of every source file in the same
+     * pass that compresses it
+     * @param algorithm digest to compute, or null for none
+     * @param verify read the archive back, past the page cache where the file system allows it,
+     * and fail if an entry differs from its source; implies CRC32C without an algorithm
+     * @return number of entries, their uncompressed bytes and the digests by source path
+     * @throws FileOperationException if operation fails or the archive does not verify
+     */
+    OperationResult compressFile(Path source, CompressionProfile profile, DigestAlgorithm algorithm,
+                                 boolean verify) throws FileOperationException;
+
+    /**
+     * Gets file metadata for given path. For a directory the size is the recursive total of
+     * everything below it
      * @return FileMetadata containing size, permissions, etc.
      */
     FileMetadata getFileInfo(Path path) throws FileOperationException;
-}
 
+    /**
+     * Finds files with identical content below a directory
+     * @param root directory to search recursively
+     * @return groups of identical files, the most wasted space first
+     * @throws FileOperationException if root cannot be read
+     */
+    List<DuplicateGroup> findDuplicates(Path root) throws FileOperationException;
+
+    /**
+     * Makes target a copy of source, copying only files that are new or differ in size or
+     * modification time. Unlike copying, target may already exist
+     * @param deleteExtra also delete entries of target that do not exist in source
+     * @param inPlace rewrite only the changed blocks of large files that exist in target, instead
+     * of replacing them; this also changes every hard link to such a file
+     * @return what had to be copied and deleted
+     * @throws FileOperationException if source cannot be read or target cannot be written
+     */
+    SyncResult syncTree(Path source, Path target, boolean deleteExtra, boolean inPlace) throws FileOperationException;
+}
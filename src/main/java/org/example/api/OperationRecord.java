@@ -0,0 +1,56 @@
+package org.example.api;
+
+import java.nio.file.Path;
+
+/**
+ * What an undoable command did, as kept in the persistent undo journal.
+ */
+public class OperationRecord {
+    public enum Type { COPY, MOVE, RENAME }
+
+    private final Type type;
+    private final Path source;
+    private final Path target;
+    private final long timeMillis;
+    private final PathFingerprint targetFingerprint;
+
+    /**
+     * @param targetFingerprint the target right after the operation, null if it could not be read
+     */
+    public OperationRecord(Type type, Path source, Path target, long timeMillis, PathFingerprint targetFingerprint) {
+        this.type = type;
+        this.source = source;
+        this.target = target;
+        this.timeMillis = timeMillis;
+        this.targetFingerprint = targetFingerprint;
+    }
+
+    public OperationRecord(Type type, Path source, Path target, long timeMillis) {
+        this(type, source, target, timeMillis, null);
+    }
+
+    public OperationRecord(Type type, Path source, Path target) {
+        this(type, source, target, System.currentTimeMillis());
+    }
+
+    // Getters
+    public Type getType() { return type; }
+    public Path getSource() { return source; }
+    /** Where the operation left its result; for a rename the path under the new name */
+    public Path getTarget() { return target; }
+    public long getTimeMillis() { return timeMillis; }
+    /** The target as the operation left it, or null if unknown */
+    public PathFingerprint getTargetFingerprint() { return targetFingerprint; }
+
+    /**
+     * @return this record with the state of its target, taken right after the operation
+     */
+    public OperationRecord withTargetFingerprint(PathFingerprint fingerprint) {
+        return new OperationRecord(type, source, target, timeMillis, fingerprint);
+    }
+
+    @Override
+    public String toString() {
+        return type.name().toLowerCase() + " " + source + " -> " + target;
+    }
+}
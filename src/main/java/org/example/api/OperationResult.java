@@ -0,0 +1,52 @@
+package org.example.api;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Summary of what a recursive operation touched.
+ */
+public class OperationResult {
+    private final long files;
+    private final long directories;
+    private final long bytes;
+    private final DigestAlgorithm algorithm;
+    private final Map<Path, String> digests;
+    private final boolean verified;
+
+    public OperationResult(long files, long directories, long bytes) {
+        this(files, directories, bytes, null, Map.of(), false);
+    }
+
+    /**
+     * @param digests hex digest of every regular file by its source path
+     * @param verified true if the written data was read back and matched the digests
+     */
+    public OperationResult(long files, long directories, long bytes, DigestAlgorithm algorithm,
+                           Map<Path, String> digests, boolean verified) {
+        this.files = files;
+        this.directories = directories;
+        this.bytes = bytes;
+        this.algorithm = algorithm;
+        this.digests = Map.copyOf(digests);
+        this.verified = verified;
+    }
+
+    // Getters
+    public long getFiles() { return files; }
+    public long getDirectories() { return directories; }
+    public long getBytes() { return bytes; }
+    public DigestAlgorithm getAlgorithm() { return algorithm; }
+    public Map<Path, String> getDigests() { return digests; }
+    public boolean isVerified() { return verified; }
+
+    @Override
+    public String toString() {
+        String summary = String.format("%d files, %d directories, %d bytes", files, directories, bytes);
+        if (algorithm == null) {
+            return summary;
+        }
+        return summary + String.format(", %d %s digests%s", digests.size(), algorithm.getLabel(),
+                verified ? ", verified" : "");
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.api;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What an undoable operation left at its target, so that undo can tell whether the target has
+ * been changed or replaced since. A directory is described by its own identity and the totals
+ * of its whole tree.
+ */
+public class PathFingerprint {
+    private final String fileKey;
+    private final long modifiedMicros;
+    private final long size;
+    private final long files;
+    private final long directories;
+
+    public PathFingerprint(String fileKey, long modifiedMicros, long size, long files, long directories) {
+        this.fileKey = fileKey;
+        this.modifiedMicros = modifiedMicros;
+        this.size = size;
+        this.files = files;
+        this.directories = directories;
+    }
+
+    /**
+     * @param metadata metadata of the target, with its contents if it is a directory
+     */
+    public static PathFingerprint of(FileMetadata metadata) {
+        DirectorySize contents = metadata.getContents();
+        return new PathFingerprint(metadata.getFileKey() != null ? metadata.getFileKey().toString() : "",
+                metadata.getLastModifiedTime().to(TimeUnit.MICROSECONDS), metadata.getSize(),
+                contents != null ? contents.getFiles() : 0, contents != null ? contents.getDirectories() : 0);
+    }
+
+    // Getters
+    public String getFileKey() { return fileKey; }
+    public long getModifiedMicros() { return modifiedMicros; }
+    public long getSize() { return size; }
+    public long getFiles() { return files; }
+    public long getDirectories() { return directories; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PathFingerprint other)) {
+            return false;
+        }
+        return fileKey.equals(other.fileKey) && modifiedMicros == other.modifiedMicros && size == other.size
+                && files == other.files && directories == other.directories;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fileKey, modifiedMicros, size, files, directories);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d bytes, %d files, %d directories, modified %d", size, files, directories,
+                modifiedMicros);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.api;
+
+/**
+ * What a tree sync had to change in the target.
+ */
+public class SyncResult {
+    private final long copiedFiles;
+    private final long copiedBytes;
+    private final long unchangedFiles;
+    private final long skippedBytes;
+    private final long createdDirectories;
+    private final long deletedEntries;
+
+    /**
+     * @param copiedBytes bytes written to the target
+     * @param skippedBytes bytes of files updated in place that were already equal and not written
+     */
+    public SyncResult(long copiedFiles, long copiedBytes, long skippedBytes, long unchangedFiles,
+                      long createdDirectories, long deletedEntries) {
+        this.copiedFiles = copiedFiles;
+        this.copiedBytes = copiedBytes;
+        this.skippedBytes = skippedBytes;
+        this.unchangedFiles = unchangedFiles;
+        this.createdDirectories = createdDirectories;
+        this.deletedEntries = deletedEntries;
+    }
+
+    // Getters
+    public long getCopiedFiles() { return copiedFiles; }
+    public long getCopiedBytes() { return copiedBytes; }
+    public long getSkippedBytes() { return skippedBytes; }
+    public long getUnchangedFiles() { return unchangedFiles; }
+    public long getCreatedDirectories() { return createdDirectories; }
+    public long getDeletedEntries() { return deletedEntries; }
+
+    @Override
+    public String toString() {
+        return String.format("%d files copied (%d bytes written, %d bytes already in place), %d unchanged, "
+                        + "%d directories created, %d entries deleted",
+                copiedFiles, copiedBytes, skippedBytes, unchangedFiles, createdDirectories, deletedEntries);
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.api;
+
+/**
+ * Callback for long running transfers. Invoked from the copying thread after every chunk.
+ */
+@FunctionalInterface
+public interface TransferProgress {
+    TransferProgress NONE = (bytesDone, totalBytes) -> { };
+
+    /**
+     * @param bytesDone bytes written so far
+     * @param totalBytes expected size of the transfer
+     */
+    void onProgress(long bytesDone, long totalBytes);
+}
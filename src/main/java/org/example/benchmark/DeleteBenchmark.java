@@ -0,0 +1,73 @@
+package org.example.benchmark;
+
+import org.example.api.OperationResult;
+import org.example.operations.ParallelTreeDeleter;
+import org.example.operations.WorkerPool;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Measures recursive delete throughput of a sequential walkFileTree against ParallelTreeDeleter.
+ * <p>
+ * Usage: java -cp target/file-manager-1.0-SNAPSHOT.jar org.example.benchmark.DeleteBenchmark [dir] [entries] [filesPerDir]
+ */
+public class DeleteBenchmark {
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"));
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int filesPerDir = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        Path sequentialRoot = dir.resolve("delete-benchmark-sequential");
+        Path parallelRoot = dir.resolve("delete-benchmark-parallel");
+        System.out.printf("Creating 2 trees of %d entries in %s%n", entries, dir);
+        createTree(sequentialRoot, entries, filesPerDir);
+        createTree(parallelRoot, entries, filesPerDir);
+
+        long start = System.nanoTime();
+        deleteSequentially(sequentialRoot);
+        report("walkFileTree", System.nanoTime() - start, entries);
+
+        start = System.nanoTime();
+        OperationResult result = new ParallelTreeDeleter(WorkerPool.shared()).delete(parallelRoot);
+        report("parallel", System.nanoTime() - start, entries);
+        System.out.println("Parallel delete removed " + result);
+    }
+
+    private static void createTree(Path root, int entries, int filesPerDir) throws IOException {
+        Files.createDirectories(root);
+        Path current = root;
+        for (int i = 0; i < entries; i++) {
+            if (i % filesPerDir == 0) {
+                current = Files.createDirectories(root.resolve("d" + (i / filesPerDir / 100)).resolve("d" + (i / filesPerDir)));
+            }
+            Files.createFile(current.resolve("f" + i));
+        }
+    }
+
+    private static void deleteSequentially(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static void report(String name, long nanos, int entries) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-12s  %6.2f s  %10.0f entries/s%n", name, seconds, entries / seconds);
+    }
+}
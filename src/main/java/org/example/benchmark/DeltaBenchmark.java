@@ -0,0 +1,105 @@
+package org.example.benchmark;
+
+import org.example.api.TransferProgress;
+import org.example.operations.ChannelTransfer;
+import org.example.operations.DeltaUpdater;
+import org.example.operations.WorkerPool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Compares a full copy with an in-place delta update after a few small changes to a large file,
+ * the case of a VM image or a database dump that is synced again. Both timings include the
+ * fsync of the target, since the cost of a full copy is mostly the flush of its dirty pages.
+ * <p>
+ * Usage: java -cp target/file-manager-1.0-SNAPSHOT.jar org.example.benchmark.DeltaBenchmark [dir] [sizeMB] [changes] [rounds]
+ */
+public class DeltaBenchmark {
+    private static final int CHANGE_SIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"));
+        long sizeMb = args.length > 1 ? Long.parseLong(args[1]) : 1024;
+        int changes = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 3;
+
+        Path source = dir.resolve("delta-benchmark.src");
+        Path copy = dir.resolve("delta-benchmark.copy");
+        Path updated = dir.resolve("delta-benchmark.updated");
+        Random random = new Random(42);
+        try {
+            System.out.printf("Writing %d MB test file to %s%n", sizeMb, source);
+            writeTestFile(source, sizeMb << 20, random);
+            ChannelTransfer.copy(source, updated, TransferProgress.NONE);
+            for (int round = 1; round <= rounds; round++) {
+                change(source, changes, random);
+                report(round, "full copy", timeFullCopy(source, copy), sizeMb, -1);
+                DeltaUpdater updater = new DeltaUpdater(WorkerPool.shared());
+                long start = System.nanoTime();
+                updater.update(source, updated);
+                force(updated);
+                report(round, "delta", System.nanoTime() - start, sizeMb, updater.getRewrittenBytes());
+                if (Files.mismatch(source, updated) != -1) {
+                    throw new IllegalStateException("Delta update produced a different file");
+                }
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(copy);
+            Files.deleteIfExists(updated);
+        }
+    }
+
+    private static long timeFullCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        long start = System.nanoTime();
+        ChannelTransfer.copy(source, target, TransferProgress.NONE);
+        force(target);
+        return System.nanoTime() - start;
+    }
+
+    private static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private static void report(int round, String name, long nanos, long sizeMb, long written) {
+        double seconds = nanos / 1e9;
+        System.out.printf("round %d  %-9s  %6.2f s  %8.1f MB/s  %s%n", round, name, seconds, sizeMb / seconds,
+                written < 0 ? "all written" : (written >> 10) + " KB written");
+    }
+
+    /**
+     * Overwrites a few small, randomly placed ranges of the file.
+     */
+    private static void change(Path file, int changes, Random random) throws IOException {
+        byte[] bytes = new byte[CHANGE_SIZE];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            for (int i = 0; i < changes; i++) {
+                random.nextBytes(bytes);
+                long position = (long) (random.nextDouble() * (channel.size() - CHANGE_SIZE));
+                channel.write(ByteBuffer.wrap(bytes), position);
+            }
+        }
+    }
+
+    private static void writeTestFile(Path file, long size, Random random) throws IOException {
+        // Random content so that filesystems with compression or dedup cannot cheat
+        byte[] block = new byte[8 * 1024 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures time to first output of fresh file-manager processes for help, copy and navigate,
+ * with and without the AppCDS archive of {@code mvn package -Pcds}. navigate needs a terminal,
+ * so it runs under script(1) and is skipped where that is not available.
+ * <p>
+ * Usage: java -cp target/file-manager-1.0-SNAPSHOT.jar org.example.benchmark.StartupBenchmark [jar] [rounds]
+ */
+public class StartupBenchmark {
+    private static final String CURSOR_POSITION_QUERY = "\u001b[6n";
+    private static final String CURSOR_POSITION_REPLY = "\u001b[24;80R";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path jar = Paths.get(args.length > 0 ? args[0] : "target/file-manager-1.0-SNAPSHOT.jar").toAbsolutePath();
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Path archive = jar.resolveSibling("file-manager.jsa");
+        Path scratch = Files.createTempDirectory("startup-benchmark");
+        Files.writeString(scratch.resolve("source.txt"), "startup benchmark");
+        boolean hasScript = Files.isExecutable(Paths.get("/usr/bin/script"));
+
+        List<List<String>> variants = new ArrayList<>();
+        variants.add(List.of());
+        if (Files.exists(archive)) {
+            variants.add(List.of("-XX:SharedArchiveFile=" + archive, "-Xlog:cds=off", "-Xlog:cds+dynamic=off"));
+        } else {
+            System.out.println("No " + archive + ", run 'mvn package -Pcds' to compare with AppCDS");
+        }
+
+        System.out.printf("%-10s  %-6s  %10s  %10s%n", "command", "cds", "median ms", "min ms");
+        measure("help", rounds, variants, jar, scratch, "Available commands", "help");
+        measure("copy", rounds, variants, jar, scratch, "Operation completed", "copy", "source.txt", "target.txt");
+        if (hasScript) {
+            measure("navigate", rounds, variants, jar, scratch, "Current directory", "navigate");
+        }
+        Files.deleteIfExists(scratch.resolve("source.txt"));
+        Files.deleteIfExists(scratch.resolve("target.txt"));
+        Files.deleteIfExists(scratch);
+    }
+
+    /**
+     * Times from process start until marker appears on its output. The variants take turns in
+     * every round, so drift on the machine does not favour one of them.
+     */
+    private static void measure(String name, int rounds, List<List<String>> variants, Path jar, Path dir,
+                                String marker, String... command) throws IOException, InterruptedException {
+        long[][] times = new long[variants.size()][rounds];
+        for (int i = 0; i < rounds; i++) {
+            for (int v = 0; v < variants.size(); v++) {
+                times[v][i] = runOnce(variants.get(v), jar, dir, marker, command);
+            }
+        }
+        for (int v = 0; v < variants.size(); v++) {
+            report(name, variants.get(v).isEmpty() ? "off" : "on", times[v]);
+        }
+    }
+
+    private static long runOnce(List<String> jvmOptions, Path jar, Path dir, String marker, String... command)
+            throws IOException, InterruptedException {
+        Files.deleteIfExists(dir.resolve("target.txt"));
+        List<String> java = new ArrayList<>();
+        java.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        java.addAll(jvmOptions);
+        java.add("-jar");
+        java.add(jar.toString());
+        java.addAll(Arrays.asList(command));
+        List<String> processCommand = java;
+        if ("navigate".equals(command[0])) {
+            // script(1) supplies the terminal; the navigator is killed once it has painted
+            processCommand = List.of("/usr/bin/script", "-qec", String.join(" ", java), "/dev/null");
+        }
+        ProcessBuilder builder = new ProcessBuilder(processCommand).directory(dir.toFile())
+                .redirectErrorStream(true);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long elapsed = waitFor(process, marker) ? System.nanoTime() - start : Long.MAX_VALUE;
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+        process.waitFor();
+        return elapsed;
+    }
+
+    /**
+     * Reads the output up to marker. Cursor position queries are answered the way a terminal
+     * would, since Lanterna waits for the reply before it paints.
+     */
+    private static boolean waitFor(Process process, String marker) throws IOException {
+        InputStream in = process.getInputStream();
+        byte[] expected = marker.getBytes(StandardCharsets.UTF_8);
+        byte[] query = CURSOR_POSITION_QUERY.getBytes(StandardCharsets.US_ASCII);
+        int matched = 0;
+        int queryMatched = 0;
+        int b;
+        while ((b = in.read()) != -1) {
+            matched = b == expected[matched] ? matched + 1 : (b == expected[0] ? 1 : 0);
+            if (matched == expected.length) {
+                return true;
+            }
+            queryMatched = b == query[queryMatched] ? queryMatched + 1 : (b == query[0] ? 1 : 0);
+            if (queryMatched == query.length) {
+                process.getOutputStream().write(CURSOR_POSITION_REPLY.getBytes(StandardCharsets.US_ASCII));
+                process.getOutputStream().flush();
+                queryMatched = 0;
+            }
+        }
+        return false;
+    }
+
+    private static void report(String command, String cds, long[] times) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] == Long.MAX_VALUE) {
+            System.out.printf("%-10s  %-6s  %10s  %10s%n", command, cds, "no output", "-");
+            return;
+        }
+        System.out.printf("%-10s  %-6s  %10.1f  %10.1f%n", command, cds,
+                sorted[sorted.length / 2] / 1e6, sorted[0] / 1e6);
+    }
+}
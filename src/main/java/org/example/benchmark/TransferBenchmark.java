@@ -0,0 +1,76 @@
+package org.example.benchmark;
+
+import org.example.api.TransferProgress;
+import org.example.operations.ChannelTransfer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * Compares Files.copy with the chunked FileChannel transfer on a large file.
+ * <p>
+ * Usage: java -cp target/file-manager-1.0-SNAPSHOT.jar org.example.benchmark.TransferBenchmark [dir] [sizeGB] [rounds]
+ */
+public class TransferBenchmark {
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"));
+        long sizeGb = args.length > 1 ? Long.parseLong(args[1]) : 2;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Path source = dir.resolve("transfer-benchmark.src");
+        Path target = dir.resolve("transfer-benchmark.dst");
+        try {
+            System.out.printf("Writing %d GB test file to %s%n", sizeGb, source);
+            writeTestFile(source, sizeGb << 30);
+            for (int round = 1; round <= rounds; round++) {
+                // Alternate the order so neither side always gets the warmer page cache
+                if (round % 2 == 1) {
+                    report(round, "Files.copy", timeFilesCopy(source, target), sizeGb);
+                    report(round, "transferTo", timeChannelTransfer(source, target), sizeGb);
+                } else {
+                    report(round, "transferTo", timeChannelTransfer(source, target), sizeGb);
+                    report(round, "Files.copy", timeFilesCopy(source, target), sizeGb);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static long timeFilesCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        long start = System.nanoTime();
+        Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+        return System.nanoTime() - start;
+    }
+
+    private static long timeChannelTransfer(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        long start = System.nanoTime();
+        ChannelTransfer.copy(source, target, TransferProgress.NONE);
+        return System.nanoTime() - start;
+    }
+
+    private static void report(int round, String name, long nanos, long sizeGb) {
+        double seconds = nanos / 1e9;
+        System.out.printf("round %d  %-10s  %6.2f s  %8.1f MB/s%n", round, name, seconds, (sizeGb << 10) / seconds);
+    }
+
+    private static void writeTestFile(Path file, long size) throws IOException {
+        // Random content so that filesystems with compression or dedup cannot cheat
+        byte[] block = new byte[8 * 1024 * 1024];
+        Random random = new Random(42);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                random.nextBytes(block);
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.api.OperationRecord;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * One command applied to many files, e.g. a copy of every match of a glob pattern. The single
+ * file operations run concurrently on a bounded pool, and a failing file is recorded rather
+ * than stopping the others.
+ * <p>
+ * The operations can also be planned when the command executes, so that glob patterns are
+ * matched against the files as the commands before it left them, e.g. in a batch.
+ */
+public class BulkCommand implements Command {
+    private final List<Command> operations;
+    private final List<Failure> failures;
+    private final List<Command> completed = Collections.synchronizedList(new ArrayList<>());
+    private final ForkJoinPool pool;
+    private final List<Path> scope;
+    private Planner planner;
+    private int rejected;
+
+    /**
+     * Builds the single file operations of a command that is about to execute.
+     */
+    @FunctionalInterface
+    public interface Planner {
+        /**
+         * @param operations receives the operations to run
+         * @param rejected receives the files that are turned down without running anything
+         * @throws IllegalArgumentException if the command cannot run at all
+         */
+        void plan(List<Command> operations, List<Failure> rejected);
+    }
+
+    /**
+     * @param rejected files that were already turned down while the sources were validated
+     */
+    public BulkCommand(List<Command> operations, List<Failure> rejected, ForkJoinPool pool) {
+        this.operations = new ArrayList<>(operations);
+        this.failures = Collections.synchronizedList(new ArrayList<>(rejected));
+        this.pool = pool;
+        this.rejected = rejected.size();
+        this.scope = null;
+    }
+
+    /**
+     * @param scope paths that contain everything the operations can touch, e.g. the directory a
+     * pattern is matched in; they stand in for {@link #affectedPaths()} until the command runs
+     */
+    public BulkCommand(Planner planner, List<Path> scope, ForkJoinPool pool) {
+        this.operations = new ArrayList<>();
+        this.failures = Collections.synchronizedList(new ArrayList<>());
+        this.pool = pool;
+        this.scope = List.copyOf(scope);
+        this.planner = planner;
+    }
+
+    /**
+     * @return true if every file succeeded
+     * @throws IllegalArgumentException if the operations cannot be planned
+     */
+    @Override
+    public boolean execute() {
+        if (planner != null) {
+            List<Failure> turnedDown = new ArrayList<>();
+            planner.plan(operations, turnedDown);
+            planner = null;
+            failures.addAll(turnedDown);
+            rejected = turnedDown.size();
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(operations.size());
+        for (Command operation : operations) {
+            tasks.add(() -> {
+                run(operation);
+                return null;
+            });
+        }
+        pool.invokeAll(tasks);
+        return failures.isEmpty();
+    }
+
+    private void run(Command operation) {
+        try {
+            if (operation.execute()) {
+                completed.add(operation);
+            } else {
+                failures.add(new Failure(firstPath(operation), "operation did not complete"));
+            }
+        } catch (Exception e) {
+            failures.add(new Failure(firstPath(operation), e.getMessage()));
+        }
+    }
+
+    /**
+     * @return number of single file operations, including those rejected up front
+     */
+    public int getTotal() {
+        return operations.size() + rejected;
+    }
+
+    public int getCompleted() {
+        return completed.size();
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return !completed.isEmpty();
+    }
+
+    @Override
+    public boolean undo() {
+        boolean undone = true;
+        List<Command> done = new ArrayList<>(completed);
+        Collections.reverse(done);
+        for (Command operation : done) {
+            undone &= operation.undo();
+        }
+        return undone;
+    }
+
+    @Override
+    public List<OperationRecord> getRecords() {
+        List<OperationRecord> records = new ArrayList<>();
+        synchronized (completed) {
+            for (Command operation : completed) {
+                records.addAll(operation.getRecords());
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        if (planner != null) {
+            return scope;
+        }
+        List<Path> paths = new ArrayList<>();
+        for (Command operation : operations) {
+            List<Path> operationPaths = operation.affectedPaths();
+            if (operationPaths.isEmpty()) {
+                return List.of();
+            }
+            paths.addAll(operationPaths);
+        }
+        return paths;
+    }
+
+    private static Path firstPath(Command operation) {
+        List<Path> paths = operation.affectedPaths();
+        return paths.isEmpty() ? null : paths.get(0);
+    }
+
+    /**
+     * A file the operation could not be applied to, and why.
+     */
+    public static class Failure {
+        private final Path path;
+        private final String message;
+
+        public Failure(Path path, String message) {
+            this.path = path;
+            this.message = message;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return path + ": " + message;
+        }
+    }
+}
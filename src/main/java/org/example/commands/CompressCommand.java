@@ -1,27 +1,64 @@
 package org.example.commands;
 
 import org.example.api.Command;
+import org.example.api.CompressionProfile;
+import org.example.api.DigestAlgorithm;
 import org.example.api.FileOperation;
+import org.example.api.OperationResult;
 import org.example.exceptions.FileOperationException;
 
 import java.nio.file.Path;
+import java.util.List;
 
 public class CompressCommand implements Command {
     private final FileOperation fileOperation;
     private final Path source;
+    private final CompressionProfile profile;
+    private final DigestAlgorithm algorithm;
+    private final boolean verify;
+    private OperationResult result;
 
     public CompressCommand(FileOperation fileOperation, Path source) {
+        this(fileOperation, source, CompressionProfile.BALANCED);
+    }
+
+    public CompressCommand(FileOperation fileOperation, Path source, CompressionProfile profile) {
+        this(fileOperation, source, profile, null, false);
+    }
+
+    /**
+     * @param algorithm digest to compute while compressing, or null for none
+     * @param verify read the archive back and check it against the digests
+     */
+    public CompressCommand(FileOperation fileOperation, Path source, CompressionProfile profile,
+                           DigestAlgorithm algorithm, boolean verify) {
         this.fileOperation = fileOperation;
         this.source = source;
+        this.profile = profile;
+        this.algorithm = algorithm;
+        this.verify = verify;
     }
 
     @Override
     public boolean execute() throws FileOperationException {
         try {
-            fileOperation.compressFile(source);
+            result = fileOperation.compressFile(source, profile, algorithm, verify);
             return true;
         } catch (Exception e) {
-            throw FileOperationException.errorCompressingFile(source);
+            throw new FileOperationException("Compression failed: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * @return entries and digests of the last execution, or null before it ran
+     */
+    public OperationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        // The archive is written next to the source
+        return List.of(source, source.resolveSibling(source.getFileName() + ".zip"));
+    }
 }
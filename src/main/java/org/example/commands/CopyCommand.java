@@ -1,7 +1,11 @@
 package org.example.commands;
 
 import org.example.api.Command;
+import org.example.api.DigestAlgorithm;
 import org.example.api.FileOperation;
+import org.example.api.OperationRecord;
+import org.example.api.OperationResult;
+import org.example.api.TransferProgress;
 import org.example.exceptions.FileOperationException;
 
 import java.nio.file.Files;
@@ -10,18 +14,39 @@ import java.util.Arrays;
 import java.util.List;
 
 /**
- * Command to copy files or directories from source to target location
+ * Command to copy files or directories from source to target location. What was copied,
+ * including any digests, is available from {@link #getResult()} after execution
  */
 public class CopyCommand implements Command {
     private final FileOperation fileOperation;
     private final Path source;
     private final Path target;
+    private final TransferProgress progress;
+    private final DigestAlgorithm algorithm;
+    private final boolean verify;
+    private OperationResult result;
     private boolean executed = false;
 
     public CopyCommand(FileOperation fileOperation, Path source, Path target) {
+        this(fileOperation, source, target, TransferProgress.NONE);
+    }
+
+    public CopyCommand(FileOperation fileOperation, Path source, Path target, TransferProgress progress) {
+        this(fileOperation, source, target, progress, null, false);
+    }
+
+    /**
+     * @param algorithm digest to compute while copying, or null for none
+     * @param verify read the copy back and check it against the digests
+     */
+    public CopyCommand(FileOperation fileOperation, Path source, Path target, TransferProgress progress,
+                       DigestAlgorithm algorithm, boolean verify) {
         this.fileOperation = fileOperation;
         this.source = source;
         this.target = target;
+        this.progress = progress;
+        this.algorithm = algorithm;
+        this.verify = verify;
     }
 
     @Override
@@ -39,7 +64,7 @@ public class CopyCommand implements Command {
     public boolean execute() throws FileOperationException {
         try {
             validate();
-            fileOperation.copyFile(source, target);
+            result = fileOperation.copyFile(source, target, progress, algorithm, verify);
             executed = true;
             return true;
         } catch (IllegalArgumentException e) {
@@ -68,6 +93,23 @@ public class CopyCommand implements Command {
         return true;
     }
 
+    @Override
+    public OperationRecord getRecord() {
+        return executed ? new OperationRecord(OperationRecord.Type.COPY, source, target) : null;
+    }
+
+    /**
+     * @return what the last execution copied, or null before it ran
+     */
+    public OperationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(source, target);
+    }
+
 //    @Override
 //    public String getDescription() {
 //        return "Copies a file or directory from source to target location";
@@ -2,6 +2,7 @@ package org.example.commands;
 
 import org.example.api.Command;
 import org.example.api.FileOperation;
+import org.example.api.OperationResult;
 import org.example.exceptions.FileOperationException;
 import java.nio.file.*;
 import java.util.*;
@@ -10,6 +11,7 @@ public class DeleteCommand implements Command {
     private final FileOperation fileOperation;
     private final Path source;
     private boolean executed = false;
+    private OperationResult result;
 
     public DeleteCommand(FileOperation fileOperation, Path source) {
         this.fileOperation = fileOperation;
@@ -31,7 +33,7 @@ public class DeleteCommand implements Command {
     public boolean execute() throws FileOperationException {
         try {
             validate();
-            fileOperation.deleteFile(source);
+            result = fileOperation.deleteFile(source);
             executed = true;
             return true;
         } catch (IllegalArgumentException e) {
@@ -46,6 +48,18 @@ public class DeleteCommand implements Command {
         return false;
     }
 
+    /**
+     * @return what the last execution removed, or null before it ran
+     */
+    public OperationResult getResult() {
+        return result;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(source);
+    }
+
 //    @Override
 //    public String getDescription() {
 //        return "Deletes a file or directory";
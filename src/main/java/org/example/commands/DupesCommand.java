@@ -0,0 +1,39 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.api.DuplicateGroup;
+import org.example.api.FileOperation;
+import org.example.exceptions.FileOperationException;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Searches a directory tree for files with identical content; the groups are available from
+ * {@link #getGroups()} after execution.
+ */
+public class DupesCommand implements Command {
+    private final FileOperation fileOperation;
+    private final Path root;
+    private List<DuplicateGroup> groups = List.of();
+
+    public DupesCommand(FileOperation fileOperation, Path root) {
+        this.fileOperation = fileOperation;
+        this.root = root;
+    }
+
+    @Override
+    public boolean execute() throws FileOperationException {
+        groups = fileOperation.findDuplicates(root);
+        return true;
+    }
+
+    public List<DuplicateGroup> getGroups() {
+        return groups;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(root);
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.api.DirectoryEntry;
+import org.example.exceptions.FileOperationException;
+import org.example.operations.FileSearch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Searches a directory tree by name and streams every match to a consumer while the search
+ * is still running.
+ */
+public class FindCommand implements Command {
+    private final FileSearch search;
+    private final Path root;
+    private final Consumer<DirectoryEntry> results;
+
+    public FindCommand(FileSearch search, Path root, Consumer<DirectoryEntry> results) {
+        this.search = search;
+        this.root = root;
+        this.results = results;
+    }
+
+    /**
+     * @return true if anything matched
+     */
+    @Override
+    public boolean execute() throws FileOperationException {
+        try {
+            return search.search(root, results) > 0;
+        } catch (IOException e) {
+            throw new FileOperationException("Search failed: " + root, e);
+        }
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(root);
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.exceptions.FileOperationException;
+import org.example.operations.ContentSearch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Searches the contents of a directory tree and streams every matching line to a consumer
+ * while the search is still running.
+ */
+public class GrepCommand implements Command {
+    private final ContentSearch search;
+    private final Path root;
+    private final Consumer<ContentSearch.Match> results;
+
+    public GrepCommand(ContentSearch search, Path root, Consumer<ContentSearch.Match> results) {
+        this.search = search;
+        this.root = root;
+        this.results = results;
+    }
+
+    /**
+     * @return true if any line matched
+     */
+    @Override
+    public boolean execute() throws FileOperationException {
+        try {
+            return search.search(root, results) > 0;
+        } catch (IOException e) {
+            throw new FileOperationException("Search failed: " + root, e);
+        }
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(root);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.exceptions.FileOperationException;
+import org.example.operations.PathIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Adds roots to the file name index and refreshes everything it covers.
+ */
+public class IndexCommand implements Command {
+    private final PathIndex index;
+    private final List<Path> roots;
+
+    public IndexCommand(PathIndex index, List<Path> roots) {
+        this.index = index;
+        this.roots = roots;
+    }
+
+    @Override
+    public boolean execute() throws FileOperationException {
+        try {
+            index.update(roots);
+            return true;
+        } catch (IOException e) {
+            throw new FileOperationException("Failed to update the index: " + e.getMessage(), e);
+        }
+    }
+
+    public PathIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.exceptions.FileOperationException;
+import org.example.operations.PathIndex;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Looks names up in the file name index instead of walking the file system. The answer is
+ * as current as the last {@link IndexCommand}.
+ */
+public class LocateCommand implements Command {
+    private final PathIndex index;
+    private final Predicate<String> matcher;
+    private final boolean fullPath;
+    private final Consumer<Path> results;
+
+    /**
+     * @param fullPath match against the whole path rather than the name
+     */
+    public LocateCommand(PathIndex index, Predicate<String> matcher, boolean fullPath, Consumer<Path> results) {
+        this.index = index;
+        this.matcher = matcher;
+        this.fullPath = fullPath;
+        this.results = results;
+    }
+
+    /**
+     * @return true if anything matched
+     */
+    @Override
+    public boolean execute() throws FileOperationException {
+        try {
+            if (index.getRoots().isEmpty()) {
+                throw new FileOperationException("Nothing is indexed yet, run 'index <directory>' first");
+            }
+            return index.query(null, matcher, fullPath, path -> {
+                results.accept(path);
+                return true;
+            }) > 0;
+        } catch (IOException e) {
+            throw new FileOperationException("Failed to read the index: " + e.getMessage(), e);
+        }
+    }
+}
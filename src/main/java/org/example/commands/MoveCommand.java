@@ -2,6 +2,7 @@ package org.example.commands;
 
 import org.example.api.Command;
 import org.example.api.FileOperation;
+import org.example.api.OperationRecord;
 import org.example.exceptions.FileOperationException;
 import java.nio.file.*;
 import java.util.*;
@@ -65,6 +66,16 @@ public class MoveCommand implements Command {
         }
     }
 
+    @Override
+    public OperationRecord getRecord() {
+        return executed ? new OperationRecord(OperationRecord.Type.MOVE, source, target) : null;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(source, target);
+    }
+
 //    @Override
 //    public String getDescription() {
 //        return "Moves a file or directory from source to target location";
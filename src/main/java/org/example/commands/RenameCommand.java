@@ -2,6 +2,7 @@ package org.example.commands;
 
 import org.example.api.Command;
 import org.example.api.FileOperation;
+import org.example.api.OperationRecord;
 import org.example.exceptions.FileOperationException;
 import java.nio.file.*;
 import java.util.*;
@@ -74,6 +75,16 @@ public class RenameCommand implements Command {
         }
     }
 
+    @Override
+    public OperationRecord getRecord() {
+        return executed ? new OperationRecord(OperationRecord.Type.RENAME, source, source.resolveSibling(newName)) : null;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(source, source.resolveSibling(newName));
+    }
+
 //    @Override
 //    public String getDescription() {
 //        return "Renames a file or directory";
@@ -0,0 +1,38 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.metrics.FileOperationMetrics;
+
+/**
+ * Takes a JSON snapshot of the file operation metrics of this process, available from
+ * {@link #getJson()} after execution. Under the daemon these cover every request it served.
+ */
+public class StatsCommand implements Command {
+    private final FileOperationMetrics metrics;
+    private final boolean reset;
+    private String json;
+
+    /**
+     * @param reset start counting from zero once the snapshot is taken
+     */
+    public StatsCommand(FileOperationMetrics metrics, boolean reset) {
+        this.metrics = metrics;
+        this.reset = reset;
+    }
+
+    @Override
+    public boolean execute() {
+        json = metrics.toJson();
+        if (reset) {
+            metrics.reset();
+        }
+        return true;
+    }
+
+    /**
+     * @return the snapshot, or null before execution
+     */
+    public String getJson() {
+        return json;
+    }
+}
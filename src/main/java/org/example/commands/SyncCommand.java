@@ -0,0 +1,68 @@
+package org.example.commands;
+
+import org.example.api.Command;
+import org.example.api.FileOperation;
+import org.example.api.SyncResult;
+import org.example.exceptions.FileOperationException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Brings a target tree up to date with a source tree, copying only what changed; the counts
+ * are available from {@link #getResult()} after execution. Not undoable, since it overwrites
+ * and may delete files in the target.
+ */
+public class SyncCommand implements Command {
+    private final FileOperation fileOperation;
+    private final Path source;
+    private final Path target;
+    private final boolean deleteExtra;
+    private final boolean inPlace;
+    private SyncResult result;
+
+    public SyncCommand(FileOperation fileOperation, Path source, Path target, boolean deleteExtra, boolean inPlace) {
+        this.fileOperation = fileOperation;
+        this.source = source;
+        this.target = target;
+        this.deleteExtra = deleteExtra;
+        this.inPlace = inPlace;
+    }
+
+    @Override
+    public boolean validate() throws IllegalArgumentException {
+        if (!Files.exists(source)) {
+            throw new IllegalArgumentException("Source does not exist: " + source);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean execute() throws FileOperationException {
+        try {
+            validate();
+        } catch (IllegalArgumentException e) {
+            throw new FileOperationException("Validation failed: " + e.getMessage());
+        }
+        result = fileOperation.syncTree(source, target, deleteExtra, inPlace);
+        return true;
+    }
+
+    @Override
+    public boolean isUndoable() {
+        return false;
+    }
+
+    /**
+     * @return what the last execution changed, or null before it ran
+     */
+    public SyncResult getResult() {
+        return result;
+    }
+
+    @Override
+    public List<Path> affectedPaths() {
+        return List.of(source, target);
+    }
+}
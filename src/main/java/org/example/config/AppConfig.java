@@ -1,4 +1,69 @@
 package org.example.config;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Central place for tunables. Every value can be overridden with a system property
+ * so scripts can adjust them without a rebuild (e.g. -Dfilemanager.workers=8).
+ */
 public class AppConfig {
+    private AppConfig() {
+    }
+
+    /**
+     * @return number of worker threads used by parallel file operations
+     */
+    public static int workerThreads() {
+        // File operations are mostly I/O bound, so oversubscribe the cores a little
+        int defaultWorkers = Runtime.getRuntime().availableProcessors() * 2;
+        return Math.max(1, Integer.getInteger("filemanager.workers", defaultWorkers));
+    }
+
+    /**
+     * @return number of independent commands a batch runs at the same time
+     */
+    public static int batchParallelism() {
+        int defaultParallelism = Runtime.getRuntime().availableProcessors();
+        return Math.max(1, Integer.getInteger("filemanager.batchParallelism", defaultParallelism));
+    }
+
+    /**
+     * @return files at least this large are copied through the FileChannel transfer path
+     */
+    public static long largeFileThreshold() {
+        return Long.getLong("filemanager.largeFileThreshold", 16L * 1024 * 1024);
+    }
+
+    /**
+     * @return bytes handed to a single transferTo call; progress is reported per chunk
+     */
+    public static long transferChunkSize() {
+        return Math.max(64 * 1024, Long.getLong("filemanager.transferChunk", 64L * 1024 * 1024));
+    }
+
+    /**
+     * @return directory for state that must survive between invocations (journals, caches)
+     */
+    public static Path dataDirectory() {
+        String configured = System.getProperty("filemanager.dataDir");
+        return configured != null
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), ".file-manager");
+    }
+
+    /**
+     * @return Unix domain socket the daemon listens on and the client connects to
+     */
+    public static Path daemonSocket() {
+        String configured = System.getProperty("filemanager.socket");
+        return configured != null ? Paths.get(configured) : dataDirectory().resolve("daemon.sock");
+    }
+
+    /**
+     * @return true to log keystroke, frame and byte counts when the navigator exits
+     */
+    public static boolean renderStats() {
+        return Boolean.getBoolean("filemanager.renderStats");
+    }
 }
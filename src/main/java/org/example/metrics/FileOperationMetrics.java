@@ -0,0 +1,80 @@
+package org.example.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link OperationStats} of every instrumented file operation, by method name.
+ */
+public class FileOperationMetrics {
+    private static final Logger logger = Logger.getLogger(FileOperationMetrics.class.getName());
+    private static final String JMX_DOMAIN = "org.example.filemanager";
+
+    private final Map<String, OperationStats> operations = new LinkedHashMap<>();
+    private final long startedAt = System.currentTimeMillis();
+
+    public FileOperationMetrics(String... names) {
+        for (String name : names) {
+            operations.put(name, new OperationStats(name));
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if name was not given to the constructor
+     */
+    public OperationStats get(String name) {
+        OperationStats stats = operations.get(name);
+        if (stats == null) {
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+        return stats;
+    }
+
+    public Collection<OperationStats> getAll() {
+        return operations.values();
+    }
+
+    /**
+     * Publishes every operation as {@code org.example.filemanager:type=FileOperation,name=<method>}
+     * on the platform MBean server, for jconsole or a JMX exporter. Meant for long-running
+     * processes; a one-shot command does not pay for loading JMX.
+     */
+    public void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (OperationStats stats : operations.values()) {
+            try {
+                ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=FileOperation,name=" + stats.getName());
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(stats, objectName);
+                }
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to register MBean for " + stats.getName(), e);
+            }
+        }
+    }
+
+    public void reset() {
+        operations.values().forEach(OperationStats::reset);
+    }
+
+    /**
+     * @return a snapshot of all operations as one JSON object
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"uptimeMillis\":").append(System.currentTimeMillis() - startedAt).append(",\"operations\":{");
+        String separator = "";
+        for (OperationStats stats : operations.values()) {
+            json.append(separator).append('"').append(stats.getName()).append("\":").append(stats.toJson());
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+}
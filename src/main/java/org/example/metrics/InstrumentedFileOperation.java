@@ -0,0 +1,233 @@
+package org.example.metrics;
+
+import org.example.api.CompressionProfile;
+import org.example.api.DigestAlgorithm;
+import org.example.api.DuplicateGroup;
+import org.example.api.FileMetadata;
+import org.example.api.FileOperation;
+import org.example.api.OperationResult;
+import org.example.api.SyncResult;
+import org.example.api.TransferProgress;
+import org.example.exceptions.FileOperationException;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Wraps any {@link FileOperation} and records the count, failures, bytes and latency of every
+ * call in {@link FileOperationMetrics}, keyed by method name; overloads share one entry. Bytes
+ * are counted for the calls whose result reports them. With this class's logger at FINE, every
+ * call is also traced with its duration.
+ * <p>
+ * Each method times the call inline rather than through a lambda, so the wrapper adds no
+ * allocation to an operation.
+ */
+public class InstrumentedFileOperation implements FileOperation {
+    private static final Logger logger = Logger.getLogger(InstrumentedFileOperation.class.getName());
+
+    private final FileOperation delegate;
+    private final FileOperationMetrics metrics = new FileOperationMetrics("validateOperation", "moveFile", "copyFile",
+            "renameFile", "deleteFile", "compressFile", "getFileInfo", "findDuplicates", "syncTree");
+    private final OperationStats validateStats = metrics.get("validateOperation");
+    private final OperationStats moveStats = metrics.get("moveFile");
+    private final OperationStats copyStats = metrics.get("copyFile");
+    private final OperationStats renameStats = metrics.get("renameFile");
+    private final OperationStats deleteStats = metrics.get("deleteFile");
+    private final OperationStats compressStats = metrics.get("compressFile");
+    private final OperationStats infoStats = metrics.get("getFileInfo");
+    private final OperationStats duplicateStats = metrics.get("findDuplicates");
+    private final OperationStats syncStats = metrics.get("syncTree");
+
+    public InstrumentedFileOperation(FileOperation delegate) {
+        this.delegate = delegate;
+    }
+
+    public FileOperationMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean validateOperation(Path source, Path target) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            boolean valid = delegate.validateOperation(source, target);
+            failed = false;
+            return valid;
+        } finally {
+            finish(validateStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public boolean dryRun(Path source, Path target) {
+        long start = System.nanoTime();
+        boolean valid = false;
+        try {
+            valid = delegate.dryRun(source, target);
+            return valid;
+        } finally {
+            finish(validateStats, source, start, 0, !valid);
+        }
+    }
+
+    @Override
+    public void moveFile(Path source, Path target) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.moveFile(source, target);
+            failed = false;
+        } finally {
+            finish(moveStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public void copyFile(Path source, Path target) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.copyFile(source, target);
+            failed = false;
+        } finally {
+            finish(copyStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public void copyFile(Path source, Path target, TransferProgress progress) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.copyFile(source, target, progress);
+            failed = false;
+        } finally {
+            finish(copyStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public OperationResult copyFile(Path source, Path target, TransferProgress progress, DigestAlgorithm algorithm,
+                                    boolean verify) throws FileOperationException {
+        long start = System.nanoTime();
+        OperationResult result = null;
+        try {
+            result = delegate.copyFile(source, target, progress, algorithm, verify);
+            return result;
+        } finally {
+            finish(copyStats, source, start, result == null ? 0 : result.getBytes(), result == null);
+        }
+    }
+
+    @Override
+    public void renameFile(Path source, String newName) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.renameFile(source, newName);
+            failed = false;
+        } finally {
+            finish(renameStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public OperationResult deleteFile(Path source) throws FileOperationException {
+        long start = System.nanoTime();
+        OperationResult result = null;
+        try {
+            result = delegate.deleteFile(source);
+            return result;
+        } finally {
+            finish(deleteStats, source, start, result == null ? 0 : result.getBytes(), result == null);
+        }
+    }
+
+    @Override
+    public void compressFile(Path source) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.compressFile(source);
+            failed = false;
+        } finally {
+            finish(compressStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public void compressFile(Path source, CompressionProfile profile) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            delegate.compressFile(source, profile);
+            failed = false;
+        } finally {
+            finish(compressStats, source, start, 0, failed);
+        }
+    }
+
+    @Override
+    public OperationResult compressFile(Path source, CompressionProfile profile, DigestAlgorithm algorithm,
+                                        boolean verify) throws FileOperationException {
+        long start = System.nanoTime();
+        OperationResult result = null;
+        try {
+            result = delegate.compressFile(source, profile, algorithm, verify);
+            return result;
+        } finally {
+            finish(compressStats, source, start, result == null ? 0 : result.getBytes(), result == null);
+        }
+    }
+
+    @Override
+    public FileMetadata getFileInfo(Path path) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            FileMetadata metadata = delegate.getFileInfo(path);
+            failed = false;
+            return metadata;
+        } finally {
+            finish(infoStats, path, start, 0, failed);
+        }
+    }
+
+    @Override
+    public List<DuplicateGroup> findDuplicates(Path root) throws FileOperationException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            List<DuplicateGroup> groups = delegate.findDuplicates(root);
+            failed = false;
+            return groups;
+        } finally {
+            finish(duplicateStats, root, start, 0, failed);
+        }
+    }
+
+    @Override
+    public SyncResult syncTree(Path source, Path target, boolean deleteExtra, boolean inPlace)
+            throws FileOperationException {
+        long start = System.nanoTime();
+        SyncResult result = null;
+        try {
+            result = delegate.syncTree(source, target, deleteExtra, inPlace);
+            return result;
+        } finally {
+            finish(syncStats, source, start, result == null ? 0 : result.getCopiedBytes(), result == null);
+        }
+    }
+
+    private static void finish(OperationStats stats, Path path, long start, long bytes, boolean failed) {
+        long nanos = System.nanoTime() - start;
+        stats.record(nanos, bytes, failed);
+        if (logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("%s %s took %d us, %d bytes%s", stats.getName(), path, nanos / 1000, bytes,
+                    failed ? ", failed" : ""));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram in the style of HdrHistogram: every power of two is split into
+ * {@link #SUB_BUCKETS} linear buckets, so any recorded value is off by at most 1/32 (about 3%)
+ * from the bucket it is counted in, over the whole range from a nanosecond to minutes.
+ * <p>
+ * Recording is a few atomic increments into a fixed array and never allocates, so it can sit
+ * on every file operation. Percentiles are read from the counts as they are; a snapshot taken
+ * while other threads record is not exactly consistent, which is fine for monitoring.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values from 2^40 ns (about 18 minutes) up are counted in the last bucket
+    private static final int MAX_MAGNITUDE = 40;
+    private static final long MAX_TRACKED = (1L << MAX_MAGNITUDE) - 1;
+    private static final int BUCKETS = (MAX_MAGNITUDE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    // A CAS loop rather than LongAccumulator(Math::max), which would bootstrap a lambda at start-up
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Counts one value, e.g. a duration in nanoseconds. Negative values count as zero.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(Math.min(clamped, MAX_TRACKED)));
+        count.increment();
+        total.add(clamped);
+        for (long current = max.get(); clamped > current; current = max.get()) {
+            if (max.compareAndSet(current, clamped)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the highest value that is counted in the same bucket as the value at percentile,
+     * never more than the largest value recorded, or 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long recorded = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            recorded += snapshot[i];
+        }
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                // The last bucket also holds everything beyond the tracked range
+                return i == BUCKETS - 1 ? getMax() : Math.min(highestInBucket(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    static long highestInBucket(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
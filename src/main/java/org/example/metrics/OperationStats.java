@@ -0,0 +1,105 @@
+package org.example.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Calls, failures, bytes and latency of one kind of file operation.
+ */
+public class OperationStats implements OperationStatsMXBean {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Counts one completed call.
+     * @param nanos time the call took, whether or not it succeeded
+     * @param bytes bytes the call reported to have processed, 0 if it does not report any
+     */
+    public void record(long nanos, long bytes, boolean failed) {
+        latency.record(nanos);
+        if (bytes > 0) {
+            this.bytes.add(bytes);
+        }
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        return latency.getMean() / 1000;
+    }
+
+    @Override
+    public long getP50Micros() {
+        return micros(latency.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getP90Micros() {
+        return micros(latency.getValueAtPercentile(90));
+    }
+
+    @Override
+    public long getP99Micros() {
+        return micros(latency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getP999Micros() {
+        return micros(latency.getValueAtPercentile(99.9));
+    }
+
+    @Override
+    public long getMaxMicros() {
+        return micros(latency.getMax());
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        bytes.reset();
+    }
+
+    /**
+     * @return the counts and latencies as a JSON object
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"count\":%d,\"errors\":%d,\"bytes\":%d,\"latencyMicros\":"
+                        + "{\"mean\":%.1f,\"p50\":%d,\"p90\":%d,\"p99\":%d,\"p999\":%d,\"max\":%d}}",
+                getCount(), getErrors(), getBytes(), getMeanMicros(), getP50Micros(), getP90Micros(),
+                getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
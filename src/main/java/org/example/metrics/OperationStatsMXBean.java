@@ -0,0 +1,27 @@
+package org.example.metrics;
+
+/**
+ * JMX view of one file operation: counts since start-up or the last reset, and latencies in
+ * microseconds.
+ */
+public interface OperationStatsMXBean {
+    long getCount();
+
+    long getErrors();
+
+    long getBytes();
+
+    double getMeanMicros();
+
+    long getP50Micros();
+
+    long getP90Micros();
+
+    long getP99Micros();
+
+    long getP999Micros();
+
+    long getMaxMicros();
+
+    void reset();
+}
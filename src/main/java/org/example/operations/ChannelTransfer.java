@@ -0,0 +1,116 @@
+package org.example.operations;
+
+import org.example.api.DigestAlgorithm;
+import org.example.api.TransferProgress;
+import org.example.config.AppConfig;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Large file transfer built on FileChannel.transferTo. Between two files the kernel can move
+ * the data without copying it through user space (sendfile/copy_file_range on Linux), and
+ * working in fixed chunks gives us a place to report progress.
+ * <p>
+ * A copy with a digest has to see the bytes, so it reads into a buffer, digests it and writes
+ * it out. That gives up the in-kernel copy but still reads the source only once.
+ */
+public final class ChannelTransfer {
+    private static final int DIGEST_BUFFER_SIZE = 1 << 20;
+    private static final ThreadLocal<ByteBuffer> DIGEST_BUFFER =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE));
+
+    private ChannelTransfer() {
+    }
+
+    /**
+     * Copies a regular file to a new target and carries over its attributes.
+     * @return number of bytes copied
+     */
+    public static long copy(Path source, Path target, TransferProgress progress) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        long copied;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            copied = transfer(in, out, progress);
+        }
+        FileAttributeSupport.copyAttributes(attrs, source, target);
+        return copied;
+    }
+
+    /**
+     * Copies a regular file to a new target like {@link #copy(Path, Path, TransferProgress)}
+     * and computes the digest of the bytes on their way through.
+     * @return the digest as lowercase hex
+     */
+    public static String copy(Path source, Path target, TransferProgress progress, DigestAlgorithm algorithm)
+            throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        StreamingDigest digest = new StreamingDigest(algorithm);
+        ByteBuffer buffer = DIGEST_BUFFER.get();
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long position = 0;
+            while (in.read(buffer.clear()) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                position += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                progress.onProgress(position, Math.max(size, position));
+            }
+        }
+        FileAttributeSupport.copyAttributes(attrs, source, target);
+        return digest.finish();
+    }
+
+    /**
+     * Reads target back, bypassing the page cache where the file system allows it, and deletes
+     * it if it does not match the digest its source had while it was copied. A damaged copy
+     * must not stay behind, since a resumed copy would take it as up to date.
+     * @throws IOException if the content differs or cannot be read
+     */
+    static void verify(Path target, DigestAlgorithm algorithm, String expected) throws IOException {
+        String actual = UncachedInputStream.digest(target, algorithm);
+        if (!actual.equals(expected)) {
+            Files.deleteIfExists(target);
+            throw new IOException(String.format("Verification failed for %s: %s %s, expected %s",
+                    target, algorithm.getLabel(), actual, expected));
+        }
+    }
+
+    /**
+     * Streams a file into an arbitrary channel, e.g. a zip entry.
+     * @return number of bytes transferred
+     */
+    public static long transferTo(Path source, WritableByteChannel out, TransferProgress progress) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            return transfer(in, out, progress);
+        }
+    }
+
+    private static long transfer(FileChannel in, WritableByteChannel out, TransferProgress progress) throws IOException {
+        long chunk = AppConfig.transferChunkSize();
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long transferred = in.transferTo(position, Math.min(chunk, size - position), out);
+            if (transferred <= 0) {
+                // The source shrank while we were copying it
+                break;
+            }
+            position += transferred;
+            progress.onProgress(position, size);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.operations;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides whether an archive entry is worth deflating. Media, archives and other formats that
+ * are compressed already are recognised by extension; anything else is sampled and stored when
+ * its first block looks like random data.
+ */
+final class CompressionPolicy {
+    private static final int SAMPLE_SIZE = 4096;
+    // Deflate rarely wins anything above this many bits of entropy per byte
+    private static final double STORE_ENTROPY_BITS = 7.5;
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp3", "aac", "ogg", "opus", "flac", "m4a",
+            "mp4", "m4v", "mkv", "avi", "mov", "webm",
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "lz4", "7z", "rar",
+            "jar", "war", "apk", "docx", "xlsx", "pptx", "odt", "ods", "epub");
+
+    private CompressionPolicy() {
+    }
+
+    static boolean shouldStore(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+            return true;
+        }
+        byte[] sample;
+        try (InputStream in = Files.newInputStream(file)) {
+            sample = in.readNBytes(SAMPLE_SIZE);
+        }
+        // Too little data to judge, and the deflate cost is negligible anyway
+        return sample.length == SAMPLE_SIZE && entropy(sample) > STORE_ENTROPY_BITS;
+    }
+
+    private static double entropy(byte[] data) {
+        int[] counts = new int[256];
+        for (byte b : data) {
+            counts[b & 0xFF]++;
+        }
+        double bits = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                double p = (double) count / data.length;
+                bits -= p * (Math.log(p) / Math.log(2));
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,419 @@
+package org.example.operations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Finds the lines of files below a directory that contain a fixed string. Directories are
+ * walked on a fork-join pool and their files scanned in batches, so a large flat directory is
+ * spread over all workers just like a deep tree.
+ * <p>
+ * Small files are read into a per-thread direct buffer, larger ones are
+ * memory-mapped, and files too large for a single mapping are streamed through the direct
+ * buffer in chunks. All three are scanned with Boyer-Moore-Horspool, which skips ahead by up
+ * to the length of the string on every mismatch. A file whose first {@link #SNIFF_SIZE} bytes
+ * contain a NUL byte is taken to be binary and skipped.
+ */
+public class ContentSearch {
+    private static final Logger logger = Logger.getLogger(ContentSearch.class.getName());
+    private static final int FILE_BATCH_SIZE = 16;
+    private static final int SNIFF_SIZE = 8 * 1024;
+    private static final int CHUNK_SIZE = 1 << 20;
+    // Room kept in the buffer for the unfinished line of the previous chunk
+    private static final int MAX_CARRY = 64 * 1024;
+    // Longer lines are shown as a window around the match
+    private static final int MAX_LINE_BYTES = 1024;
+    private static final int CONTEXT_BYTES = 128;
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHUNK_SIZE + MAX_CARRY));
+
+    private final ForkJoinPool pool;
+    private final byte[] needle;
+    private final byte[] fold = new byte[256];
+    private final int[] skip = new int[256];
+    private final List<PathMatcher> ignored = new ArrayList<>();
+    private final LongAdder scannedFiles = new LongAdder();
+    private final LongAdder binaryFiles = new LongAdder();
+    private final LongAdder scannedBytes = new LongAdder();
+    private final LongAdder matches = new LongAdder();
+
+    /**
+     * @param ignoreCase compare ASCII letters case-insensitively
+     * @param ignoredGlobs file name globs to leave out; an ignored directory is not entered
+     */
+    public ContentSearch(ForkJoinPool pool, String text, boolean ignoreCase, List<String> ignoredGlobs) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("Search text is empty");
+        }
+        this.pool = pool;
+        for (int i = 0; i < 256; i++) {
+            fold[i] = (byte) (ignoreCase && i >= 'A' && i <= 'Z' ? i + ('a' - 'A') : i);
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        this.needle = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            needle[i] = fold[bytes[i] & 0xFF];
+        }
+        Arrays.fill(skip, needle.length);
+        for (int i = 0; i < needle.length - 1; i++) {
+            skip[needle[i] & 0xFF] = needle.length - 1 - i;
+        }
+        for (String glob : ignoredGlobs) {
+            ignored.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        }
+    }
+
+    /**
+     * One line that contains the search text.
+     */
+    public static class Match {
+        private final Path path;
+        private final long lineNumber;
+        private final String line;
+
+        Match(Path path, long lineNumber, String line) {
+            this.path = path;
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+
+        // Getters
+        public Path getPath() { return path; }
+        public long getLineNumber() { return lineNumber; }
+        public String getLine() { return line; }
+    }
+
+    /**
+     * Searches root, a file or a directory tree. Matches of one file arrive in order, but
+     * files are scanned concurrently.
+     * @param results receives every matching line, from several threads
+     * @return number of matching lines
+     */
+    public long search(Path root, Consumer<Match> results) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+        try {
+            if (attrs.isDirectory()) {
+                pool.invoke(new DirectoryTask(root, results));
+            } else {
+                scan(root, results);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return matches.sum();
+    }
+
+    public long getScannedFiles() {
+        return scannedFiles.sum();
+    }
+
+    public long getBinaryFiles() {
+        return binaryFiles.sum();
+    }
+
+    public long getScannedBytes() {
+        return scannedBytes.sum();
+    }
+
+    private boolean isIgnored(Path name) {
+        for (PathMatcher pattern : ignored) {
+            if (pattern.matches(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void scan(Path file, Consumer<Match> results) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < needle.length) {
+                return;
+            }
+            ScanState state = new ScanState(file, results);
+            if (size <= CHUNK_SIZE) {
+                ByteBuffer buffer = BUFFERS.get();
+                buffer.clear();
+                // Read the rest of a file only once its start showed that it is text
+                buffer.limit((int) Math.min(size, SNIFF_SIZE));
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                if (isBinary(buffer, buffer.position())) {
+                    binaryFiles.increment();
+                    return;
+                }
+                buffer.limit((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                scanChunk(buffer, 0, buffer.position(), true, state);
+            } else if (size <= Integer.MAX_VALUE) {
+                ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                if (isBinary(map, SNIFF_SIZE)) {
+                    binaryFiles.increment();
+                    return;
+                }
+                scanChunk(map, 0, (int) size, true, state);
+            } else {
+                if (!stream(channel, state)) {
+                    binaryFiles.increment();
+                    return;
+                }
+            }
+            scannedFiles.increment();
+            scannedBytes.add(size);
+        } catch (IOException e) {
+            logger.fine("Skipping unreadable file " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scans a file chunk by chunk. The unfinished last line of a chunk, or at least the bytes
+     * a match could still start in, are moved to the front of the buffer before the next read.
+     * @return false if the file turned out to be binary
+     */
+    private boolean stream(FileChannel channel, ScanState state) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        buffer.clear();
+        long bufferStart = 0;
+        boolean first = true;
+        boolean eof = false;
+        while (!eof) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                    break;
+                }
+            }
+            int limit = buffer.position();
+            if (first && isBinary(buffer, Math.min(limit, SNIFF_SIZE))) {
+                return false;
+            }
+            first = false;
+            long carryFrom = scanChunk(buffer, bufferStart, limit, eof, state);
+            int keep = (int) (bufferStart + limit - carryFrom);
+            buffer.position((int) (carryFrom - bufferStart)).limit(limit);
+            buffer.compact();
+            buffer.limit(Math.min(buffer.capacity(), keep + CHUNK_SIZE));
+            bufferStart = carryFrom;
+        }
+        return true;
+    }
+
+    /**
+     * Reports the matching lines in buffer[0, limit), which holds the file from offset start.
+     * @return file offset the next chunk has to start at
+     */
+    private long scanChunk(ByteBuffer buffer, long start, int limit, boolean eof, ScanState state) {
+        int m = needle.length;
+        int from = (int) Math.max(0, state.nextSearch - start);
+        if (state.inReportedLine) {
+            // The previous chunk ended inside a line that was already reported
+            int lineEnd = indexOf(buffer, (byte) '\n', from, limit);
+            if (lineEnd < 0) {
+                state.nextSearch = start + limit;
+                countLines(buffer, start, limit, state);
+                return start + limit;
+            }
+            state.inReportedLine = false;
+            from = lineEnd + 1;
+        }
+        int position = from;
+        while (position <= limit - m) {
+            int last = fold[buffer.get(position + m - 1) & 0xFF];
+            if (last == needle[m - 1] && matchesAt(buffer, position)) {
+                int lineEnd = indexOf(buffer, (byte) '\n', position + m, limit);
+                int lineStart = lastIndexOf(buffer, (byte) '\n', position - 1, 0) + 1;
+                if (lineEnd < 0 && !eof && limit - lineStart <= MAX_CARRY) {
+                    // Finish the line with the next chunk
+                    state.nextSearch = start + position;
+                    countLines(buffer, start, lineStart, state);
+                    return start + lineStart;
+                }
+                countLines(buffer, start, position, state);
+                report(buffer, lineStart, lineEnd < 0 ? limit : lineEnd, position, state);
+                if (lineEnd < 0) {
+                    state.inReportedLine = true;
+                    state.nextSearch = start + limit;
+                    countLines(buffer, start, limit, state);
+                    return start + limit;
+                }
+                position = lineEnd + 1;
+                continue;
+            }
+            position += skip[last & 0xFF];
+        }
+        // A match may still start in the last m - 1 bytes; keep the current line if it is short
+        int carry = Math.max(position, limit - m + 1);
+        int lineStart = lastIndexOf(buffer, (byte) '\n', limit - 1, 0) + 1;
+        if (lineStart > 0 && lineStart < carry && limit - lineStart <= MAX_CARRY) {
+            carry = lineStart;
+        }
+        carry = Math.max(0, Math.min(carry, limit));
+        state.nextSearch = start + Math.max(position, from);
+        countLines(buffer, start, carry, state);
+        return start + carry;
+    }
+
+    private boolean matchesAt(ByteBuffer buffer, int position) {
+        for (int j = needle.length - 2; j >= 0; j--) {
+            if (fold[buffer.get(position + j) & 0xFF] != needle[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Advances the line count of state up to (excluding) position.
+     */
+    private static void countLines(ByteBuffer buffer, long start, int position, ScanState state) {
+        for (int i = (int) Math.max(0, state.countedTo - start); i < position; i++) {
+            if (buffer.get(i) == '\n') {
+                state.line++;
+            }
+        }
+        state.countedTo = Math.max(state.countedTo, start + position);
+    }
+
+    private void report(ByteBuffer buffer, int lineStart, int lineEnd, int matchStart, ScanState state) {
+        if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+            lineEnd--;
+        }
+        if (lineEnd - lineStart > MAX_LINE_BYTES) {
+            lineStart = Math.max(lineStart, matchStart - CONTEXT_BYTES);
+            lineEnd = Math.min(lineEnd, matchStart + needle.length + CONTEXT_BYTES);
+        }
+        byte[] bytes = new byte[lineEnd - lineStart];
+        buffer.get(lineStart, bytes);
+        matches.increment();
+        state.results.accept(new Match(state.file, state.line, new String(bytes, StandardCharsets.UTF_8)));
+    }
+
+    private static boolean isBinary(ByteBuffer buffer, int length) {
+        int end = Math.min(length, buffer.limit());
+        for (int i = 0; i < end; i++) {
+            if (buffer.get(i) == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOf(ByteBuffer buffer, byte value, int from, int to) {
+        for (int i = from; i >= to; i--) {
+            if (buffer.get(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Position of the scan within one file, carried across chunks.
+     */
+    private static class ScanState {
+        final Path file;
+        final Consumer<Match> results;
+        long line = 1;
+        long countedTo;
+        long nextSearch;
+        boolean inReportedLine;
+
+        ScanState(Path file, Consumer<Match> results) {
+            this.file = file;
+            this.results = results;
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final Consumer<Match> results;
+
+        DirectoryTask(Path dir, Consumer<Match> results) {
+            this.dir = dir;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> subtasks = new ArrayList<>();
+            List<Path> batch = new ArrayList<>(FILE_BATCH_SIZE);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (isIgnored(entry.getFileName())) {
+                        continue;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        subtasks.add(new DirectoryTask(entry, results));
+                    } else if (attrs.isRegularFile()) {
+                        batch.add(entry);
+                        if (batch.size() == FILE_BATCH_SIZE) {
+                            subtasks.add(new FileBatchTask(batch, results));
+                            batch = new ArrayList<>(FILE_BATCH_SIZE);
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                logger.fine("Skipping unreadable directory " + dir + ": " + e.getMessage());
+            }
+            if (!batch.isEmpty()) {
+                subtasks.add(new FileBatchTask(batch, results));
+            }
+            invokeAll(subtasks);
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final List<Path> batch;
+        private final Consumer<Match> results;
+
+        FileBatchTask(List<Path> batch, Consumer<Match> results) {
+            this.batch = batch;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : batch) {
+                scan(file, results);
+            }
+        }
+    }
+}
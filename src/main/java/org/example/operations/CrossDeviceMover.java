@@ -0,0 +1,111 @@
+package org.example.operations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Move between file stores, where a rename is impossible: parallel copy, fsync, then delete
+ * the source. Each step is recorded in a {@link MoveJournal} so that a move interrupted
+ * half way through can be finished by {@link #recover} on the next run. Recovery never deletes
+ * the target: a move it cannot finish stays journaled and marked failed.
+ * <p>
+ * A move whose process died is resumed by the next run. A move that failed was already
+ * reported as failed, so later runs only warn about it until recovery is asked for explicitly.
+ */
+class CrossDeviceMover {
+    private static final Logger logger = Logger.getLogger(CrossDeviceMover.class.getName());
+
+    void move(Path source, Path target) throws IOException {
+        MoveJournal journal = MoveJournal.begin(source, target);
+        try {
+            copy(journal);
+            finish(journal);
+        } catch (IOException | RuntimeException e) {
+            try {
+                journal.markFailed();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Completes moves left over by processes that are no longer running. Moves that are still
+     * running in another process or thread are left alone.
+     * @param includeFailed also finish moves that failed and were reported as failed; otherwise
+     * they are only logged
+     * @return number of moves completed
+     */
+    int recover(boolean includeFailed) throws IOException {
+        int recovered = 0;
+        for (MoveJournal journal : MoveJournal.pending()) {
+            try (journal) {
+                if (journal.isFailed() && !includeFailed) {
+                    logger.warning(String.format("Move from %s to %s failed earlier and is unfinished; "
+                            + "run 'recover' to finish it", journal.getSource(), journal.getTarget()));
+                    continue;
+                }
+                if (recover(journal)) {
+                    recovered++;
+                }
+            }
+        }
+        return recovered;
+    }
+
+    /**
+     * @return false if the move is still unfinished; it is then marked failed
+     */
+    private boolean recover(MoveJournal journal) throws IOException {
+        try {
+            if (journal.getState() == MoveJournal.State.COPYING) {
+                if (!Files.exists(journal.getSource(), LinkOption.NOFOLLOW_LINKS)) {
+                    // Nothing left to move from; keep whatever reached the target
+                    journal.complete();
+                    return true;
+                }
+                copy(journal);
+            }
+            finish(journal);
+            logger.info(String.format("Resumed interrupted move from %s to %s",
+                    journal.getSource(), journal.getTarget()));
+            return true;
+        } catch (IOException e) {
+            if (journal.getState() == MoveJournal.State.COPYING) {
+                // The source is still whole; keep what reached the target for the next attempt
+                logger.log(Level.WARNING, "Could not resume move from " + journal.getSource() + " to "
+                        + journal.getTarget(), e);
+            } else {
+                // The target is complete, so only the source cleanup is outstanding
+                logger.log(Level.WARNING, "Could not remove moved source " + journal.getSource(), e);
+            }
+            journal.markFailed();
+            return false;
+        }
+    }
+
+    private void copy(MoveJournal journal) throws IOException {
+        // Resume mode makes a re-run skip everything that already reached the target
+        ParallelTreeCopier copier = new ParallelTreeCopier(WorkerPool.shared(), true, true);
+        copier.copy(journal.getSource(), journal.getTarget());
+        journal.advance(MoveJournal.State.DELETING);
+    }
+
+    private void finish(MoveJournal journal) throws IOException {
+        if (Files.exists(journal.getSource(), LinkOption.NOFOLLOW_LINKS)) {
+            deleteTree(journal.getSource());
+        }
+        journal.complete();
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        new ParallelTreeDeleter(WorkerPool.shared()).delete(root);
+    }
+}
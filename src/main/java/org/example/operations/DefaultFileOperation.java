@@ -1,19 +1,28 @@
 package org.example.operations;
 
+import org.example.api.CompressionProfile;
+import org.example.api.DigestAlgorithm;
+import org.example.api.DuplicateGroup;
 import org.example.api.FileOperation;
 import org.example.api.FileMetadata;
+import org.example.api.OperationResult;
+import org.example.api.SyncResult;
+import org.example.api.TransferProgress;
+import org.example.config.AppConfig;
 import org.example.exceptions.FileOperationException;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 public class DefaultFileOperation implements FileOperation {
     private static final Logger logger = Logger.getLogger(DefaultFileOperation.class.getName());
+    private final CrossDeviceMover crossDeviceMover = new CrossDeviceMover();
+    private final DirectorySizeCache directorySizes = new DirectorySizeCache(WorkerPool.shared());
+    private HashCache hashCache;
 
     @Override
     public boolean validateOperation(Path source, Path target) throws FileOperationException {
@@ -35,20 +44,90 @@ public class DefaultFileOperation implements FileOperation {
     public void moveFile(Path source, Path target) throws FileOperationException {
         try {
             validateOperation(source, target);
-            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
-            logger.info(String.format("File moved successfully from %s to %s", source, target));
+            if (isSameFileStore(source, target)) {
+                try {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                    logger.info(String.format("File moved successfully from %s to %s", source, target));
+                    return;
+                } catch (AtomicMoveNotSupportedException e) {
+                    // e.g. a bind mount of the same device; fall through to the copying move
+                }
+            }
+            crossDeviceMover.move(source, target);
+            logger.info(String.format("File moved across file stores from %s to %s", source, target));
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error moving file", e);
             throw FileOperationException.errorMovingFile(source, target, e);
         }
     }
 
+    /**
+     * Finishes cross-device moves whose process died before completing them.
+     * Moves that failed with an error are only logged; see {@link #recoverFailedMoves()}.
+     */
+    public void recoverInterruptedMoves() {
+        try {
+            crossDeviceMover.recover(false);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read move journals", e);
+        }
+    }
+
+    /**
+     * Finishes every unfinished cross-device move that no running process owns,
+     * including those that failed and were reported.
+     * @return number of moves completed
+     */
+    public int recoverFailedMoves() throws FileOperationException {
+        try {
+            return crossDeviceMover.recover(true);
+        } catch (IOException e) {
+            throw new FileOperationException("Failed to read move journals", e);
+        }
+    }
+
     @Override
     public void copyFile(Path source, Path target) throws FileOperationException {
+        copyFile(source, target, TransferProgress.NONE);
+    }
+
+    @Override
+    public void copyFile(Path source, Path target, TransferProgress progress) throws FileOperationException {
+        copyFile(source, target, progress, null, false);
+    }
+
+    @Override
+    public OperationResult copyFile(Path source, Path target, TransferProgress progress, DigestAlgorithm algorithm,
+                                    boolean verify) throws FileOperationException {
+        if (verify && algorithm == null) {
+            algorithm = DigestAlgorithm.CRC32C;
+        }
         try {
             validateOperation(source, target);
-            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
-            logger.info(String.format("File copied successfully from %s to %s", source, target));
+            if (target.toAbsolutePath().normalize().startsWith(source.toAbsolutePath().normalize())) {
+                throw new FileOperationException("Cannot copy a directory into itself: " + target);
+            }
+            if (Files.isRegularFile(source) && algorithm != null) {
+                String digest = ChannelTransfer.copy(source, target, progress, algorithm);
+                if (verify) {
+                    ChannelTransfer.verify(target, algorithm, digest);
+                }
+                long bytes = Files.size(target);
+                logger.info(String.format("Copied %s to %s (%d bytes, %s %s%s)", source, target, bytes,
+                        algorithm.getLabel(), digest, verify ? ", verified" : ""));
+                return new OperationResult(1, 0, bytes, algorithm, Map.of(source, digest), verify);
+            }
+            if (Files.isRegularFile(source) && Files.size(source) >= AppConfig.largeFileThreshold()) {
+                long bytes = ChannelTransfer.copy(source, target, progress);
+                logger.info(String.format("Copied %s to %s (%d bytes)", source, target, bytes));
+                return new OperationResult(1, 0, bytes);
+            }
+            ParallelTreeCopier copier = new ParallelTreeCopier(WorkerPool.shared()).withDigests(algorithm, verify);
+            copier.copy(source, target);
+            OperationResult result = new OperationResult(copier.getFilesCopied(), copier.getDirectoriesCopied(),
+                    copier.getBytesCopied(), algorithm, copier.getDigests(), verify);
+            logger.info(String.format("Copied %s to %s (%s)", source, target, result));
+            return result;
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error copying file", e);
             throw FileOperationException.errorCopyingFile(source, target, e);
@@ -69,11 +148,12 @@ public class DefaultFileOperation implements FileOperation {
     }
 
     @Override
-    public void deleteFile(Path source) throws FileOperationException {
+    public OperationResult deleteFile(Path source) throws FileOperationException {
         try {
             validateOperation(source, null);
-            Files.delete(source);
-            logger.info(String.format("File deleted successfully: %s", source));
+            OperationResult result = new ParallelTreeDeleter(WorkerPool.shared()).delete(source);
+            logger.info(String.format("Deleted %s (%s)", source, result));
+            return result;
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error deleting file", e);
             throw FileOperationException.errorDeletingFile(source, e);
@@ -83,52 +163,96 @@ public class DefaultFileOperation implements FileOperation {
     @Override
     public FileMetadata getFileInfo(Path path) throws FileOperationException {
         try {
-            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
-            String permissions = Files.getPosixFilePermissions(path).toString();
-            return new FileMetadata(path, attrs, permissions);
+            FileMetadata metadata = FileMetadata.read(path);
+            return metadata.isDirectory() ? metadata.withContents(directorySizes.measure(path)) : metadata;
         } catch (IOException e) {
             throw FileOperationException.errorMetadata(path, e);
         }
     }
 
+    /**
+     * @return the recursive directory sizes behind {@link #getFileInfo}, shared so that a view
+     * of many directories and the info of one of them reuse each other's walks
+     */
+    public DirectorySizeCache getDirectorySizes() {
+        return directorySizes;
+    }
+
     @Override
     public void compressFile(Path source) throws FileOperationException {
+        compressFile(source, CompressionProfile.BALANCED);
+    }
+
+    @Override
+    public void compressFile(Path source, CompressionProfile profile) throws FileOperationException {
+        compressFile(source, profile, null, false);
+    }
+
+    @Override
+    public OperationResult compressFile(Path source, CompressionProfile profile, DigestAlgorithm algorithm,
+                                        boolean verify) throws FileOperationException {
+        if (verify && algorithm == null) {
+            algorithm = DigestAlgorithm.CRC32C;
+        }
         try {
             Path target = Paths.get(source.toString() + ".zip");
-            
-            try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(target))) {
-                if (Files.isDirectory(source)) {
-                    compressDirectory(source, source.getFileName(), zos);
-                } else {
-                    compressFile(source, source.getFileName(), zos);
-                }
-            }
-            logger.info(String.format("Successfully compressed %s to %s", source, target));
+            ParallelZipWriter writer = new ParallelZipWriter(WorkerPool.shared(), profile.getDeflateLevel())
+                    .withDigests(algorithm, verify);
+            long entries = writer.write(source, target);
+            logger.info(String.format("Successfully compressed %s to %s (%d entries, %d stored%s)",
+                    source, target, entries, writer.getStoredEntries(), verify ? ", verified" : ""));
+            return new OperationResult(entries, 0, writer.getSourceBytes(), algorithm, writer.getDigests(), verify);
         } catch (IOException e) {
-            throw new FileOperationException("Failed to compress: " + source, e);
+            throw new FileOperationException("Failed to compress " + source + ": " + e.getMessage(), e);
         }
     }
 
-    private void compressDirectory(Path sourceDir, Path fileName, ZipOutputStream zos) throws IOException {
-        Files.walk(sourceDir)
-            .filter(path -> !Files.isDirectory(path))
-            .forEach(path -> {
-                ZipEntry zipEntry = new ZipEntry(sourceDir.relativize(path).toString());
-                try {
-                    zos.putNextEntry(zipEntry);
-                    Files.copy(path, zos);
-                    zos.closeEntry();
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
+    @Override
+    public List<DuplicateGroup> findDuplicates(Path root) throws FileOperationException {
+        try {
+            DuplicateFinder finder = new DuplicateFinder(WorkerPool.shared(), hashCache());
+            List<DuplicateGroup> groups = finder.find(root);
+            logger.info(String.format("Found %d duplicate groups in %s (%d files, %d hashed, %d from cache, %d bytes read, %d skipped)",
+                    groups.size(), root, finder.getScannedFiles(), finder.getHashedFiles(), finder.getCacheHits(),
+                    finder.getBytesRead(), finder.getSkipped()));
+            return groups;
+        } catch (IOException e) {
+            throw new FileOperationException("Failed to search for duplicates: " + root, e);
+        }
+    }
+
+    @Override
+    public SyncResult syncTree(Path source, Path target, boolean deleteExtra, boolean inPlace)
+            throws FileOperationException {
+        validatePath(source);
+        Path absoluteSource = source.toAbsolutePath().normalize();
+        Path absoluteTarget = target.toAbsolutePath().normalize();
+        if (absoluteTarget.startsWith(absoluteSource) || absoluteSource.startsWith(absoluteTarget)) {
+            throw new FileOperationException("Source and target must not contain each other: " + source + ", " + target);
+        }
+        try {
+            TreeSynchronizer synchronizer = new TreeSynchronizer(WorkerPool.shared(), deleteExtra, inPlace);
+            SyncResult result = synchronizer.sync(source, target);
+            logger.info(String.format("Synced %s to %s: %s", source, target, result));
+            return result;
+        } catch (IOException e) {
+            throw new FileOperationException("Failed to sync " + source + " to " + target, e);
+        }
+    }
+
+    /**
+     * Loaded once, so a long-running process keeps the hashes in memory between searches.
+     */
+    private synchronized HashCache hashCache() {
+        if (hashCache == null) {
+            hashCache = HashCache.load(AppConfig.dataDirectory().resolve("hashes.cache"));
+        }
+        return hashCache;
     }
 
-    private void compressFile(Path source, Path fileName, ZipOutputStream zos) throws IOException {
-        ZipEntry zipEntry = new ZipEntry(fileName.toString());
-        zos.putNextEntry(zipEntry);
-        Files.copy(source, zos);
-        zos.closeEntry();
+    private static boolean isSameFileStore(Path source, Path target) throws IOException {
+        Path targetParent = target.toAbsolutePath().getParent();
+        return Files.getFileStore(source).equals(Files.getFileStore(targetParent));
     }
 
     private void validatePath(Path path) throws FileOperationException {
@@ -0,0 +1,166 @@
+package org.example.operations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Updates an existing copy of a file in place, rewriting only the blocks that differ from the
+ * source. For a large file changed in a few places, e.g. a VM image or a database dump, this
+ * turns a full rewrite into a read of both files and a few small positional writes.
+ * <p>
+ * Both files are read in {@link #BLOCK_SIZE} blocks at the same offsets and compared
+ * byte-for-byte; segments of the file are compared concurrently on the fork-join pool. Runs of
+ * differing blocks are written back with one positional write. Data that moved to another
+ * offset is rewritten, since an in-place update cannot take it from where it was without
+ * overwriting data still needed. A grown source is appended, a shrunk one truncates the target.
+ */
+public class DeltaUpdater {
+    public static final int BLOCK_SIZE = 64 * 1024;
+    private static final int BLOCKS_PER_READ = 16;
+    private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final ThreadLocal<ByteBuffer[]> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[] {
+            ByteBuffer.allocateDirect(BLOCK_SIZE * BLOCKS_PER_READ),
+            ByteBuffer.allocateDirect(BLOCK_SIZE * BLOCKS_PER_READ)});
+
+    private final ForkJoinPool pool;
+    private final LongAdder rewrittenBytes = new LongAdder();
+    private final LongAdder skippedBytes = new LongAdder();
+
+    public DeltaUpdater(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Makes the existing regular file target equal to source and carries over the attributes
+     * of source.
+     */
+    public void update(Path source, Path target) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            long common = Math.min(size, out.size());
+            try {
+                pool.invoke(new RangeTask(in, out, 0, common));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (size > common) {
+                long position = common;
+                while (position < size) {
+                    long transferred = in.transferTo(position, size - position, out.position(position));
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                rewrittenBytes.add(position - common);
+            } else if (out.size() > size) {
+                out.truncate(size);
+            }
+        }
+        FileAttributeSupport.copyAttributes(attrs, source, target);
+    }
+
+    /**
+     * @return bytes written to targets so far
+     */
+    public long getRewrittenBytes() {
+        return rewrittenBytes.sum();
+    }
+
+    /**
+     * @return bytes that were already equal and left alone
+     */
+    public long getSkippedBytes() {
+        return skippedBytes.sum();
+    }
+
+    /**
+     * Compares a range of the two files, split in halves until it is one segment long.
+     */
+    private class RangeTask extends RecursiveAction {
+        private final FileChannel in;
+        private final FileChannel out;
+        private final long start;
+        private final long end;
+
+        RangeTask(FileChannel in, FileChannel out, long start, long end) {
+            this.in = in;
+            this.out = out;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > SEGMENT_SIZE) {
+                // Split on a block boundary so that no block is compared by two tasks
+                long middle = start + (end - start) / 2 / BLOCK_SIZE * BLOCK_SIZE;
+                invokeAll(new RangeTask(in, out, start, middle), new RangeTask(in, out, middle, end));
+                return;
+            }
+            ByteBuffer[] buffers = BUFFERS.get();
+            ByteBuffer source = buffers[0];
+            ByteBuffer target = buffers[1];
+            try {
+                for (long position = start; position < end; position += source.capacity()) {
+                    int length = (int) Math.min(source.capacity(), end - position);
+                    read(in, source, position, length);
+                    read(out, target, position, length);
+                    compareAndWrite(source, target, position, length);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Writes every run of differing blocks in source back to the target.
+         */
+        private void compareAndWrite(ByteBuffer source, ByteBuffer target, long position, int length)
+                throws IOException {
+            int runStart = -1;
+            for (int offset = 0; offset <= length; offset += BLOCK_SIZE) {
+                boolean differs = false;
+                if (offset < length) {
+                    int blockEnd = Math.min(length, offset + BLOCK_SIZE);
+                    differs = source.slice(offset, blockEnd - offset).mismatch(target.slice(offset, blockEnd - offset)) >= 0;
+                }
+                if (differs && runStart < 0) {
+                    runStart = offset;
+                } else if (!differs && runStart >= 0) {
+                    int runEnd = Math.min(length, offset);
+                    ByteBuffer run = source.slice(runStart, runEnd - runStart);
+                    while (run.hasRemaining()) {
+                        out.write(run, position + runStart + run.position());
+                    }
+                    rewrittenBytes.add(runEnd - runStart);
+                    runStart = -1;
+                }
+                if (!differs && offset < length) {
+                    skippedBytes.add(Math.min(length, offset + BLOCK_SIZE) - offset);
+                }
+            }
+        }
+
+        private void read(FileChannel channel, ByteBuffer buffer, long position, int length) throws IOException {
+            buffer.clear().limit(length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("File shrank while being compared");
+                }
+            }
+        }
+    }
+}
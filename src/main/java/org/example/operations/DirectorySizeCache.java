@@ -0,0 +1,224 @@
+package org.example.operations;
+
+import org.example.api.DirectorySize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * Recursive sizes of directory trees, like {@code du}, computed on a fork-join pool with one
+ * task per directory.
+ * <p>
+ * For every directory the sizes of its own files and the names of its subdirectories are
+ * cached together with its modification time. A directory whose time is unchanged is not
+ * listed again on the next walk, only its subdirectories are visited, because a change deep
+ * down does not touch the times of the directories above it. A file that grows in place
+ * does not change its directory's time either, so such a change is only picked up once
+ * something is added to or removed from that directory. Symbolic links count as files of
+ * their own size and are never followed.
+ */
+public class DirectorySizeCache {
+    private static final Logger logger = Logger.getLogger(DirectorySizeCache.class.getName());
+    // Dropped entirely beyond this, a walk of everything rebuilds what is needed
+    private static final int MAX_DIRECTORIES = 1_000_000;
+
+    private final ForkJoinPool pool;
+    private final Map<Path, Node> nodes = new ConcurrentHashMap<>();
+
+    public DirectorySizeCache(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Walks dir and waits for its total.
+     */
+    public DirectorySize measure(Path dir) throws IOException {
+        return start(dir, null).join();
+    }
+
+    /**
+     * Starts walking dir in the background.
+     * @param finished receives the total of every directory below and including dir as soon as
+     * its subtree is done, from the worker threads; may be null
+     */
+    public Measurement start(Path dir, BiConsumer<Path, DirectorySize> finished) {
+        if (nodes.size() > MAX_DIRECTORIES) {
+            nodes.clear();
+        }
+        Measurement measurement = new Measurement();
+        measurement.task = pool.submit(new DirectoryTask(dir, finished, measurement));
+        return measurement;
+    }
+
+    /**
+     * @return the total of dir from the last walk that reached it, without checking whether it
+     * is still current; null if it was never measured
+     */
+    public DirectorySize cached(Path dir) {
+        Node node = nodes.get(dir);
+        return node != null ? node.total : null;
+    }
+
+    /**
+     * A walk that is running or done.
+     */
+    public static class Measurement {
+        private ForkJoinTask<DirectorySize> task;
+        private volatile boolean cancelled;
+
+        /**
+         * Stops the walk; subtrees that were not finished keep their previous totals.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        /**
+         * @return the total of the directory the walk started at, null if it was cancelled
+         * @throws IOException if that directory could not be read
+         */
+        public DirectorySize join() throws IOException {
+            try {
+                return task.join();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * What was found in one directory itself, excluding its subdirectories.
+     */
+    private static class Node {
+        final FileTime modified;
+        final long bytes;
+        final long files;
+        final List<Path> subdirectories;
+        volatile DirectorySize total;
+
+        Node(FileTime modified, long bytes, long files, List<Path> subdirectories) {
+            this.modified = modified;
+            this.bytes = bytes;
+            this.files = files;
+            this.subdirectories = subdirectories;
+        }
+    }
+
+    private class DirectoryTask extends RecursiveTask<DirectorySize> {
+        private final Path dir;
+        private final BiConsumer<Path, DirectorySize> finished;
+        private final Measurement measurement;
+        private final boolean root;
+
+        DirectoryTask(Path dir, BiConsumer<Path, DirectorySize> finished, Measurement measurement) {
+            this(dir, finished, measurement, true);
+        }
+
+        private DirectoryTask(Path dir, BiConsumer<Path, DirectorySize> finished, Measurement measurement,
+                              boolean root) {
+            this.dir = dir;
+            this.finished = finished;
+            this.measurement = measurement;
+            this.root = root;
+        }
+
+        @Override
+        protected DirectorySize compute() {
+            if (measurement.cancelled) {
+                return null;
+            }
+            Node node;
+            try {
+                node = read();
+            } catch (IOException | DirectoryIteratorException e) {
+                IOException cause = e instanceof IOException io ? io : ((DirectoryIteratorException) e).getCause();
+                if (root) {
+                    throw new UncheckedIOException(cause);
+                }
+                // Unreadable directories below the root count as empty
+                logger.fine("Skipping unreadable directory " + dir + ": " + cause.getMessage());
+                return new DirectorySize(0, 0, 1);
+            }
+            List<DirectoryTask> subtasks = new ArrayList<>(node.subdirectories.size());
+            for (Path subdirectory : node.subdirectories) {
+                subtasks.add(new DirectoryTask(subdirectory, finished, measurement, false));
+            }
+            invokeAll(subtasks);
+            long bytes = node.bytes;
+            long files = node.files;
+            long directories = 1;
+            for (DirectoryTask subtask : subtasks) {
+                DirectorySize size = subtask.getRawResult();
+                if (size == null) {
+                    return null;
+                }
+                bytes += size.getBytes();
+                files += size.getFiles();
+                directories += size.getDirectories();
+            }
+            if (measurement.cancelled) {
+                return null;
+            }
+            DirectorySize total = new DirectorySize(bytes, files, directories);
+            node.total = total;
+            if (finished != null) {
+                finished.accept(dir, total);
+            }
+            return total;
+        }
+
+        /**
+         * @return the cached node if the directory did not change, otherwise a new listing
+         */
+        private Node read() throws IOException {
+            FileTime modified = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS)
+                    .lastModifiedTime();
+            Node cached = nodes.get(dir);
+            if (cached != null && cached.modified.equals(modified)) {
+                return cached;
+            }
+            long bytes = 0;
+            long files = 0;
+            List<Path> subdirectories = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        subdirectories.add(entry);
+                    } else {
+                        bytes += attrs.size();
+                        files++;
+                    }
+                }
+            }
+            Node node = new Node(modified, bytes, files, subdirectories);
+            nodes.put(dir, node);
+            return node;
+        }
+    }
+}
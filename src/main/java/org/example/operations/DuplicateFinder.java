@@ -0,0 +1,319 @@
+package org.example.operations;
+
+import org.example.api.DuplicateGroup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Finds files with identical content below a directory in stages that each read as little as
+ * possible: files are grouped by size, and sizes that occur once are dropped without opening
+ * anything; the remaining candidates are hashed on their first and last block; only files that
+ * still collide are hashed in full. Every stage runs on a fork-join pool, and hashes come from
+ * the {@link HashCache} while a file is unchanged.
+ * <p>
+ * Empty files are not reported, and hard links to the same file count as one file.
+ */
+public class DuplicateFinder {
+    private static final Logger logger = Logger.getLogger(DuplicateFinder.class.getName());
+    private static final int BLOCK_SIZE = 4096;
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final int HASH_BATCH_SIZE = 16;
+    private static final String ALGORITHM = "SHA-256";
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(READ_BUFFER_SIZE));
+
+    private final ForkJoinPool pool;
+    private final HashCache cache;
+    private final LongAdder scanned = new LongAdder();
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+
+    DuplicateFinder(ForkJoinPool pool, HashCache cache) {
+        this.pool = pool;
+        this.cache = cache;
+    }
+
+    /**
+     * @return groups of identical files, the most wasted space first
+     */
+    public List<DuplicateGroup> find(Path root) throws IOException {
+        Path start = root.toAbsolutePath().normalize();
+        Queue<Candidate> files = new ConcurrentLinkedQueue<>();
+        try {
+            pool.invoke(new ScanTask(start, files, true));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        scanned.add(files.size());
+
+        List<List<Candidate>> groups = new ArrayList<>(collisions(files, candidate -> candidate.size));
+        groups.removeIf(group -> group.get(0).size == 0);
+        groups = refine(groups, false);
+        groups = refine(groups, true);
+
+        List<DuplicateGroup> duplicates = new ArrayList<>(groups.size());
+        for (List<Candidate> group : groups) {
+            List<Path> paths = new ArrayList<>(group.size());
+            for (Candidate candidate : group) {
+                paths.add(candidate.path);
+            }
+            paths.sort(null);
+            Candidate first = group.get(0);
+            duplicates.add(new DuplicateGroup(first.size, HexFormat.of().formatHex(first.full), paths));
+        }
+        duplicates.sort(Comparator.comparingLong(DuplicateGroup::getWastedBytes).reversed()
+                .thenComparing(group -> group.getPaths().get(0)));
+
+        Set<String> seen = new HashSet<>();
+        for (Candidate candidate : files) {
+            seen.add(candidate.path.toString());
+        }
+        cache.retainUnder(start, seen);
+        cache.save();
+        return duplicates;
+    }
+
+    public long getScannedFiles() {
+        return scanned.sum();
+    }
+
+    /**
+     * @return partial and full hashes computed by reading files
+     */
+    public long getHashedFiles() {
+        return hashed.sum();
+    }
+
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * @return files and directories that could not be read
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    /**
+     * Hashes every candidate and splits each group by the hash.
+     */
+    private List<List<Candidate>> refine(List<List<Candidate>> groups, boolean full) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (List<Candidate> group : groups) {
+            candidates.addAll(group);
+        }
+        pool.invoke(new HashTask(candidates, 0, candidates.size(), full));
+
+        List<List<Candidate>> refined = new ArrayList<>();
+        for (List<Candidate> group : groups) {
+            group.removeIf(candidate -> (full ? candidate.full : candidate.partial) == null);
+            Function<Candidate, Object> key = full
+                    ? candidate -> ByteBuffer.wrap(candidate.full)
+                    : candidate -> ByteBuffer.wrap(candidate.partial);
+            refined.addAll(collisions(group, key));
+        }
+        return refined;
+    }
+
+    /**
+     * @return groups of two or more candidates with equal keys, hard links of one file merged
+     */
+    private static List<List<Candidate>> collisions(Iterable<Candidate> candidates, Function<Candidate, Object> key) {
+        Map<Object, List<Candidate>> byKey = new HashMap<>();
+        for (Candidate candidate : candidates) {
+            byKey.computeIfAbsent(key.apply(candidate), k -> new ArrayList<>()).add(candidate);
+        }
+        List<List<Candidate>> groups = new ArrayList<>();
+        for (List<Candidate> group : byKey.values()) {
+            if (group.size() < 2) {
+                continue;
+            }
+            Set<Object> fileKeys = new HashSet<>();
+            group.removeIf(candidate -> candidate.fileKey != null && !fileKeys.add(candidate.fileKey));
+            if (group.size() >= 2) {
+                groups.add(group);
+            }
+        }
+        return groups;
+    }
+
+    private void hash(Candidate candidate, boolean full) {
+        if (!full && candidate.size <= 2L * BLOCK_SIZE) {
+            // Both blocks cover the whole file, so the partial hash is final
+            candidate.partial = candidate.full = read(candidate, false);
+            return;
+        }
+        if (full && candidate.full != null) {
+            return;
+        }
+        byte[] hash = read(candidate, full);
+        if (full) {
+            candidate.full = hash;
+        } else {
+            candidate.partial = hash;
+        }
+    }
+
+    private byte[] read(Candidate candidate, boolean full) {
+        boolean whole = full || candidate.size <= 2L * BLOCK_SIZE;
+        byte[] cached = cache.get(candidate.path, candidate.size, candidate.modified, whole);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        try (FileChannel channel = FileChannel.open(candidate.path, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance(ALGORITHM);
+            ByteBuffer buffer = BUFFERS.get();
+            if (whole) {
+                digestRange(channel, digest, buffer, 0, candidate.size);
+            } else {
+                digestRange(channel, digest, buffer, 0, BLOCK_SIZE);
+                digestRange(channel, digest, buffer, candidate.size - BLOCK_SIZE, BLOCK_SIZE);
+            }
+            byte[] hash = digest.digest();
+            cache.put(candidate.path, candidate.size, candidate.modified, whole, hash);
+            hashed.increment();
+            return hash;
+        } catch (IOException e) {
+            logger.fine("Skipping unreadable file " + candidate.path + ": " + e.getMessage());
+            skipped.increment();
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void digestRange(FileChannel channel, MessageDigest digest, ByteBuffer buffer,
+                             long position, long length) throws IOException {
+        long end = position + length;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File shrank while it was being hashed");
+            }
+            buffer.flip();
+            digest.update(buffer);
+            position += read;
+            bytesRead.add(read);
+        }
+    }
+
+    private static class Candidate {
+        final Path path;
+        final long size;
+        final long modified;
+        final Object fileKey;
+        volatile byte[] partial;
+        volatile byte[] full;
+
+        Candidate(Path path, BasicFileAttributes attrs) {
+            this.path = path;
+            this.size = attrs.size();
+            this.modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            this.fileKey = attrs.fileKey();
+        }
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private final Path dir;
+        private final Queue<Candidate> files;
+        // Only an unreadable root fails the search; anything below it is skipped
+        private final boolean root;
+
+        ScanTask(Path dir, Queue<Candidate> files, boolean root) {
+            this.dir = dir;
+            this.files = files;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            List<ScanTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        skipped.increment();
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        subtasks.add(new ScanTask(entry, files, false));
+                    } else if (attrs.isRegularFile()) {
+                        files.add(new Candidate(entry, attrs));
+                    }
+                }
+            } catch (IOException e) {
+                if (root) {
+                    throw new UncheckedIOException(e);
+                }
+                logger.fine("Skipping unreadable directory " + dir + ": " + e.getMessage());
+                skipped.increment();
+            }
+            invokeAll(subtasks);
+        }
+    }
+
+    private class HashTask extends RecursiveAction {
+        private final List<Candidate> candidates;
+        private final int from;
+        private final int to;
+        private final boolean full;
+
+        HashTask(List<Candidate> candidates, int from, int to, boolean full) {
+            this.candidates = candidates;
+            this.from = from;
+            this.to = to;
+            this.full = full;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= HASH_BATCH_SIZE) {
+                for (int i = from; i < to; i++) {
+                    hash(candidates.get(i), full);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new HashTask(candidates, from, middle, full), new HashTask(candidates, middle, to, full));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.operations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+
+/**
+ * Helpers for carrying attributes over to a copy created without Files.copy.
+ */
+final class FileAttributeSupport {
+    // rw-r--r--, for file systems without POSIX permissions
+    private static final int DEFAULT_MODE = 0644;
+
+    private FileAttributeSupport() {
+    }
+
+    /**
+     * @return the POSIX attributes of file (following links) where the file system has them,
+     * otherwise the basic ones
+     */
+    static BasicFileAttributes readWithPermissions(Path file) throws IOException {
+        try {
+            return Files.readAttributes(file, PosixFileAttributes.class);
+        } catch (UnsupportedOperationException e) {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        }
+    }
+
+    /**
+     * @return the permission bits of attrs, e.g. 0755, or 0644 if attrs has no permissions
+     */
+    static int permissionBits(BasicFileAttributes attrs) {
+        if (!(attrs instanceof PosixFileAttributes posix)) {
+            return DEFAULT_MODE;
+        }
+        int mode = 0;
+        for (PosixFilePermission permission : posix.permissions()) {
+            // Declared from OWNER_READ down to OTHERS_EXECUTE, i.e. 0400 down to 0001
+            mode |= 0400 >> permission.ordinal();
+        }
+        return mode;
+    }
+
+    static void copyAttributes(BasicFileAttributes attrs, Path source, Path target) throws IOException {
+        PosixFileAttributeView sourcePosix = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+        PosixFileAttributeView targetPosix = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+        if (sourcePosix != null && targetPosix != null) {
+            targetPosix.setPermissions(sourcePosix.readAttributes().permissions());
+        }
+        Files.getFileAttributeView(target, BasicFileAttributeView.class)
+                .setTimes(attrs.lastModifiedTime(), attrs.lastAccessTime(), attrs.creationTime());
+    }
+}
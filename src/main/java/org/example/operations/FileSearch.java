@@ -0,0 +1,273 @@
+package org.example.operations;
+
+import org.example.api.DirectoryEntry;
+import org.example.utils.GlobExpander;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a directory tree for names on a fork-join pool. Every directory is listed by its
+ * own task and its subdirectories are forked, so independent subtrees are read concurrently.
+ * Matches are handed to the consumer as soon as they are found, from the worker threads.
+ * Entries matching an ignore pattern are skipped, and an ignored directory is not entered.
+ * Symbolic links are reported but never followed.
+ * <p>
+ * With a {@link PathIndex} that covers the root, the index is queried instead of the file
+ * system; matches are only checked to still exist.
+ */
+public class FileSearch {
+    private static final Logger logger = Logger.getLogger(FileSearch.class.getName());
+
+    public enum Mode {
+        /** PathMatcher glob against the file name, e.g. {@code *.java} */
+        GLOB,
+        /** Regular expression found anywhere in the file name */
+        REGEX,
+        /** Plain text in the file name; case-insensitive unless it contains upper case */
+        SUBSTRING
+    }
+
+    private final ForkJoinPool pool;
+    private final Predicate<String> matcher;
+    private final List<PathMatcher> ignored = new ArrayList<>();
+    private final LongAdder visited = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private volatile boolean cancelled;
+    private PathIndex index;
+
+    /**
+     * @param ignoredGlobs file name globs to leave out, e.g. {@code .git} or {@code node_modules}
+     */
+    public FileSearch(ForkJoinPool pool, String pattern, Mode mode, List<String> ignoredGlobs) {
+        this.pool = pool;
+        this.matcher = nameMatcher(pattern, mode);
+        for (String glob : ignoredGlobs) {
+            ignored.add(FileSystems.getDefault().getPathMatcher("glob:" + glob));
+        }
+    }
+
+    /**
+     * @return a test of file names for the pattern
+     * @throws java.util.regex.PatternSyntaxException if the pattern is not a valid glob or regex
+     */
+    public static Predicate<String> nameMatcher(String pattern, Mode mode) {
+        switch (mode) {
+            case GLOB -> {
+                Pattern glob = Pattern.compile(GlobExpander.toRegex(pattern));
+                return name -> glob.matcher(name).matches();
+            }
+            case REGEX -> {
+                Pattern regex = Pattern.compile(pattern);
+                return name -> regex.matcher(name).find();
+            }
+            default -> {
+                if (!pattern.equals(pattern.toLowerCase(Locale.ROOT))) {
+                    return name -> name.contains(pattern);
+                }
+                return name -> containsIgnoreCase(name, pattern);
+            }
+        }
+    }
+
+    private static boolean containsIgnoreCase(String name, String lowerCasePattern) {
+        for (int i = 0; i <= name.length() - lowerCasePattern.length(); i++) {
+            if (name.regionMatches(true, i, lowerCasePattern, 0, lowerCasePattern.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Answers searches below the roots of index from the index.
+     * @return this search
+     */
+    public FileSearch useIndex(PathIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Starts searching below root without waiting for the result.
+     * @param results receives every match, concurrently from several threads
+     */
+    public ForkJoinTask<Void> start(Path root, Consumer<DirectoryEntry> results) {
+        try {
+            if (index != null && index.covers(root)) {
+                return pool.submit(new IndexTask(root, results));
+            }
+        } catch (IOException e) {
+            logger.fine("Not using the index: " + e.getMessage());
+        }
+        return pool.submit(new DirectoryTask(root, results, true));
+    }
+
+    /**
+     * Searches below root and returns once the whole tree was searched.
+     * @return number of matches
+     */
+    public long search(Path root, Consumer<DirectoryEntry> results) throws IOException {
+        try {
+            start(root, results).join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return matched.sum();
+    }
+
+    /**
+     * Makes the running search stop at the next entry.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public long getVisitedEntries() {
+        return visited.sum();
+    }
+
+    public long getMatches() {
+        return matched.sum();
+    }
+
+    private boolean isIgnored(Path name) {
+        for (PathMatcher pattern : ignored) {
+            if (pattern.matches(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static DirectoryEntry toEntry(Path path, BasicFileAttributes attrs) {
+        String permissions = attrs instanceof PosixFileAttributes
+                ? PosixFilePermissions.toString(((PosixFileAttributes) attrs).permissions())
+                : "";
+        return new DirectoryEntry(path, attrs.isDirectory(), attrs.size(), attrs.lastModifiedTime(), permissions);
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (UnsupportedOperationException e) {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        }
+    }
+
+    private class IndexTask extends RecursiveAction {
+        private final Path root;
+        private final Consumer<DirectoryEntry> results;
+
+        IndexTask(Path root, Consumer<DirectoryEntry> results) {
+            this.root = root;
+            this.results = results;
+        }
+
+        @Override
+        protected void compute() {
+            Path absoluteRoot = root.toAbsolutePath().normalize();
+            try {
+                index.query(absoluteRoot, matcher, false, path -> {
+                    if (cancelled) {
+                        return false;
+                    }
+                    visited.increment();
+                    for (Path name : absoluteRoot.relativize(path)) {
+                        if (isIgnored(name)) {
+                            return true;
+                        }
+                    }
+                    try {
+                        // The index may predate a delete
+                        DirectoryEntry entry = toEntry(path, readAttributes(path));
+                        matched.increment();
+                        results.accept(entry);
+                    } catch (IOException e) {
+                        logger.fine("Skipping indexed path that is gone: " + path);
+                    }
+                    return true;
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+        private final Consumer<DirectoryEntry> results;
+        // Only an unreadable root fails the search; unreadable directories below it are skipped
+        private final boolean root;
+
+        DirectoryTask(Path dir, Consumer<DirectoryEntry> results, boolean root) {
+            this.dir = dir;
+            this.results = results;
+            this.root = root;
+        }
+
+        @Override
+        protected void compute() {
+            List<DirectoryTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (cancelled) {
+                        return;
+                    }
+                    visited.increment();
+                    Path name = entry.getFileName();
+                    if (isIgnored(name)) {
+                        continue;
+                    }
+                    BasicFileAttributes attrs;
+                    try {
+                        attrs = readAttributes(entry);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    if (attrs.isDirectory()) {
+                        DirectoryTask subtask = new DirectoryTask(entry, results, false);
+                        // Start on the subtree right away so idle workers can steal it
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                    if (matcher.test(name.toString())) {
+                        matched.increment();
+                        results.accept(toEntry(entry, attrs));
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                if (root) {
+                    throw e instanceof IOException io ? new UncheckedIOException(io)
+                            : new UncheckedIOException(((DirectoryIteratorException) e).getCause());
+                }
+                logger.fine("Skipping unreadable directory " + dir + ": " + e.getMessage());
+            } finally {
+                for (DirectoryTask subtask : subtasks) {
+                    subtask.join();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.operations;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Content hashes of files keyed by path, size and modification time, kept on disk between
+ * runs. An entry is only used while the file still has the size and time it was hashed at,
+ * so a re-scan reads nothing but the files that changed.
+ */
+class HashCache {
+    private static final Logger logger = Logger.getLogger(HashCache.class.getName());
+    private static final int MAGIC = 0x464d4843; // "FMHC"
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    private HashCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the cache; a missing or unreadable file yields an empty cache.
+     */
+    static HashCache load(Path file) {
+        HashCache cache = new HashCache(file);
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unknown format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                cache.entries.put(path, new Entry(size, modified, readHash(in), readHash(in)));
+            }
+        } catch (IOException e) {
+            logger.warning("Ignoring unreadable hash cache " + file + ": " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * @param full true for the hash of the whole content, false for the partial hash
+     * @return the cached hash, or null if there is none for this version of the file
+     */
+    byte[] get(Path path, long size, long modified, boolean full) {
+        Entry entry = entries.get(path.toString());
+        if (entry == null || entry.size != size || entry.modified != modified) {
+            return null;
+        }
+        return full ? entry.full : entry.partial;
+    }
+
+    void put(Path path, long size, long modified, boolean full, byte[] hash) {
+        entries.compute(path.toString(), (key, old) -> {
+            boolean current = old != null && old.size == size && old.modified == modified;
+            byte[] partial = full ? (current ? old.partial : null) : hash;
+            byte[] whole = full ? hash : (current ? old.full : null);
+            return new Entry(size, modified, partial, whole);
+        });
+        dirty = true;
+    }
+
+    /**
+     * Forgets files below root that a complete scan of root did not see.
+     */
+    void retainUnder(Path root, Set<String> seen) {
+        String prefix = root.toString().endsWith(root.getFileSystem().getSeparator())
+                ? root.toString() : root + root.getFileSystem().getSeparator();
+        for (Iterator<String> keys = entries.keySet().iterator(); keys.hasNext(); ) {
+            String key = keys.next();
+            if (key.startsWith(prefix) && !seen.contains(key)) {
+                keys.remove();
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * Writes the cache aside and renames it into place, if anything changed.
+     */
+    synchronized void save() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        dirty = false;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Map<String, Entry> snapshot = Map.copyOf(entries);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().size);
+                out.writeLong(entry.getValue().modified);
+                writeHash(out, entry.getValue().partial);
+                writeHash(out, entry.getValue().full);
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static byte[] readHash(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return null;
+        }
+        byte[] hash = new byte[length];
+        in.readFully(hash);
+        return hash;
+    }
+
+    private static void writeHash(DataOutputStream out, byte[] hash) throws IOException {
+        if (hash == null) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(hash.length);
+            out.write(hash);
+        }
+    }
+
+    private static class Entry {
+        final long size;
+        final long modified;
+        final byte[] partial;
+        final byte[] full;
+
+        Entry(long size, long modified, byte[] partial, byte[] full) {
+            this.size = size;
+            this.modified = modified;
+            this.partial = partial;
+            this.full = full;
+        }
+    }
+}
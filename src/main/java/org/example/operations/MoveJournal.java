@@ -0,0 +1,234 @@
+package org.example.operations;
+
+import org.example.config.AppConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable record of one cross-device move. The journal is written before the copy starts and
+ * advanced once the copy is on disk, so an interrupted move can be resumed.
+ * <p>
+ * The process that owns a move holds an exclusive lock on a lock file next to the journal until
+ * the move is done; the journal itself is replaced on every save, so it cannot carry the lock.
+ * {@link #pending()} only returns journals whose lock it can take, i.e. whose owner is gone.
+ */
+class MoveJournal implements Closeable {
+    enum State {
+        /** Target is being populated, source is untouched */
+        COPYING,
+        /** Target is complete and synced, source is being removed */
+        DELETING
+    }
+
+    private static final String SUFFIX = ".journal";
+    private static final String LOCK_SUFFIX = ".lock";
+    // Journals locked by this process. Closing any channel of a file can drop every lock the
+    // process holds on it, so these are skipped without opening their lock file again
+    private static final Set<Path> HELD = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final Path source;
+    private final Path target;
+    private final FileLock lock;
+    private State state;
+    private boolean failed;
+
+    private MoveJournal(Path file, Path source, Path target, State state, boolean failed, FileLock lock) {
+        this.file = file;
+        this.source = source;
+        this.target = target;
+        this.state = state;
+        this.failed = failed;
+        this.lock = lock;
+    }
+
+    /**
+     * Records a new move and locks it for the calling process until {@link #complete()} or
+     * {@link #close()}.
+     */
+    static MoveJournal begin(Path source, Path target) throws IOException {
+        Path dir = directory();
+        Files.createDirectories(dir);
+        Path file = dir.resolve(UUID.randomUUID() + SUFFIX);
+        // Locked before the journal exists, so that recovery never sees it unlocked
+        FileLock lock = tryLock(file);
+        if (lock == null) {
+            throw new IOException("Cannot lock new move journal " + file);
+        }
+        MoveJournal journal = new MoveJournal(file, source.toAbsolutePath(), target.toAbsolutePath(),
+                State.COPYING, false, lock);
+        try {
+            journal.save();
+        } catch (IOException e) {
+            journal.close();
+            throw e;
+        }
+        return journal;
+    }
+
+    /**
+     * @return journals of moves that did not finish and whose owner no longer runs, each locked
+     * for the caller, who must close them
+     */
+    static List<MoveJournal> pending() throws IOException {
+        List<MoveJournal> journals = new ArrayList<>();
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            return journals;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path file : files) {
+                FileLock lock = tryLock(file);
+                if (lock == null) {
+                    // Still being moved by its owner
+                    continue;
+                }
+                try {
+                    if (!Files.exists(file)) {
+                        // Completed between the listing and the lock
+                        release(file, lock);
+                        continue;
+                    }
+                    Properties props = new Properties();
+                    try (Reader reader = Files.newBufferedReader(file)) {
+                        props.load(reader);
+                    }
+                    journals.add(new MoveJournal(file, Paths.get(props.getProperty("source")),
+                            Paths.get(props.getProperty("target")), State.valueOf(props.getProperty("state")),
+                            Boolean.parseBoolean(props.getProperty("failed")), lock));
+                } catch (IOException | RuntimeException e) {
+                    release(file, lock);
+                    for (MoveJournal journal : journals) {
+                        journal.close();
+                    }
+                    throw e;
+                }
+            }
+        }
+        return journals;
+    }
+
+    Path getSource() {
+        return source;
+    }
+
+    Path getTarget() {
+        return target;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if the move failed and the failure was reported to whoever asked for it
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    void advance(State newState) throws IOException {
+        state = newState;
+        save();
+    }
+
+    /**
+     * Records that the move failed and was reported, so that it is only finished on request.
+     */
+    void markFailed() throws IOException {
+        failed = true;
+        save();
+    }
+
+    void complete() throws IOException {
+        try {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(lockFile(file));
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Gives up the lock, leaving the journal for a later recovery.
+     */
+    @Override
+    public void close() throws IOException {
+        release(file, lock);
+    }
+
+    private void save() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("source", source.toString());
+        props.setProperty("target", target.toString());
+        props.setProperty("state", state.name());
+        props.setProperty("failed", Boolean.toString(failed));
+        // Write aside and rename so a crash never leaves a half written journal
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            props.store(out, "file-manager cross-device move");
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return the lock of the journal, or null if another process or a move of this one holds it
+     */
+    private static FileLock tryLock(Path journal) throws IOException {
+        if (!HELD.add(journal)) {
+            return null;
+        }
+        FileLock lock = null;
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile(journal), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+            return lock;
+        } finally {
+            if (lock == null) {
+                HELD.remove(journal);
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    private static void release(Path journal, FileLock lock) throws IOException {
+        if (lock.channel().isOpen()) {
+            // Closing the channel releases the lock
+            lock.channel().close();
+            HELD.remove(journal);
+        }
+    }
+
+    private static Path lockFile(Path journal) {
+        return journal.resolveSibling(journal.getFileName() + LOCK_SUFFIX);
+    }
+
+    private static Path directory() {
+        return AppConfig.dataDirectory().resolve("moves");
+    }
+}
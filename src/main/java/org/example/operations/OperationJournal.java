@@ -0,0 +1,408 @@
+package org.example.operations;
+
+import org.example.api.OperationRecord;
+import org.example.api.PathFingerprint;
+import org.example.config.AppConfig;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Append-only, memory-mapped journal of undoable operations, so that {@code undo} works across
+ * invocations. Appending is a few puts into the mapping; the fsync is left to {@link #sync()},
+ * which callers invoke once per command or batch and which lets concurrent callers share one
+ * flush (group commit).
+ * <p>
+ * Layout: a header of magic, version and the end offset, then records of
+ * {@code [int length][byte type][long time][long group][short n][source][short n][target][fingerprint][int length]},
+ * where the fingerprint of the target is a zero byte if unknown, else a one byte followed by
+ * {@code [long modified][long size][long files][long directories][short n][file key]}.
+ * The trailing length lets {@link #undoLast} find the newest record from the end offset, and a
+ * record whose two lengths disagree is recognised as torn. Records appended together share a
+ * non-zero group and are undone together. Every access holds a file lock, so the daemon and
+ * one-shot invocations can share the journal. A full journal is compacted into a new file that
+ * replaces it atomically; the old file is then marked retired, and a process that still has it
+ * open finds the mark once it gets the lock and opens the new one.
+ */
+public class OperationJournal implements Closeable {
+    private static final Logger logger = Logger.getLogger(OperationJournal.class.getName());
+    private static final int MAGIC = 0x464d4a31; // "FMJ1"
+    private static final int RETIRED = 0x464d4a30; // "FMJ0", replaced by a compacted copy
+    private static final int VERSION = 3;
+    private static final int END_OFFSET = 8;
+    private static final int HEADER_SIZE = 16;
+    // Leading and trailing length, type, time and group
+    private static final int RECORD_OVERHEAD = 4 + 1 + 8 + 8 + 4;
+    // Modified time, size, files and directories of a target fingerprint, before its file key
+    private static final int FINGERPRINT_SIZE = 4 * 8;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_CAPACITY = 16 * 1024 * 1024;
+
+    private final Path file;
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private FileLock held;
+    // Group commit state: records appended and records known to be on disk
+    private long appended;
+    private long synced;
+    private boolean syncing;
+
+    /**
+     * Nothing is opened until the journal is first used.
+     */
+    public OperationJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the journal in the user's data directory
+     */
+    public static OperationJournal openDefault() {
+        return new OperationJournal(AppConfig.dataDirectory().resolve("undo.journal"));
+    }
+
+    public void append(OperationRecord record) throws IOException {
+        append(List.of(record));
+    }
+
+    /**
+     * Appends the records of one command; they are undone as a unit.
+     */
+    public synchronized void append(List<OperationRecord> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        long group = records.size() == 1 ? 0 : ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        lock();
+        try {
+            for (OperationRecord record : records) {
+                write(record, group);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Applies inverse to the newest record, and to the older records of its group, removing
+     * each record once inverse returned for it. If inverse throws, that record and everything
+     * older stay in the journal.
+     * @return the records that were undone, newest first; empty if the journal is empty
+     */
+    public synchronized List<OperationRecord> undoLast(Consumer<OperationRecord> inverse) throws IOException {
+        List<OperationRecord> undone = new ArrayList<>();
+        if (channel == null && !Files.exists(file)) {
+            return undone;
+        }
+        lock();
+        try {
+            long group = -1;
+            int end = (int) map.getLong(END_OFFSET);
+            while (end > HEADER_SIZE) {
+                int start = end - map.getInt(end - 4);
+                long recordGroup = map.getLong(start + 13);
+                if (group != -1 && (group == 0 || recordGroup != group)) {
+                    break;
+                }
+                group = recordGroup;
+                OperationRecord record = read(start);
+                inverse.accept(record);
+                map.putLong(END_OFFSET, start);
+                appended++;
+                undone.add(record);
+                end = start;
+            }
+            return undone;
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Forces every record appended so far to disk. Callers that arrive while another thread is
+     * flushing wait for it and are covered by the next flush, so a burst of operations costs
+     * one or two fsyncs in total.
+     */
+    public void sync() throws IOException {
+        long target;
+        MappedByteBuffer toForce;
+        synchronized (this) {
+            target = appended;
+            while (syncing && synced < target) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while waiting for the journal to sync", e);
+                }
+            }
+            if (synced >= target || map == null) {
+                return;
+            }
+            syncing = true;
+            target = appended;
+            toForce = map;
+        }
+        try {
+            toForce.force();
+        } finally {
+            synchronized (this) {
+                synced = Math.max(synced, target);
+                syncing = false;
+                notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            map.force();
+            channel.close();
+            channel = null;
+            map = null;
+        }
+    }
+
+    private void lock() throws IOException {
+        while (true) {
+            if (channel == null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            FileLock lock = channel.lock();
+            boolean retired;
+            try {
+                retired = open();
+            } catch (IOException | RuntimeException e) {
+                lock.release();
+                throw e;
+            }
+            if (!retired) {
+                held = lock;
+                return;
+            }
+            // Another process compacted the journal into a new file; open that one instead
+            lock.release();
+            channel.close();
+            channel = null;
+            map = null;
+        }
+    }
+
+    private void unlock() throws IOException {
+        FileLock lock = held;
+        held = null;
+        lock.release();
+    }
+
+    /**
+     * Maps the locked file, or checks the existing mapping.
+     * @return true if the file has been replaced by a compacted copy
+     */
+    private boolean open() throws IOException {
+        if (channel.size() == 0) {
+            initialize();
+        } else if (map == null || map.capacity() != channel.size()) {
+            // First use, or another process grew the file
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (map.getInt(0) == RETIRED) {
+                return true;
+            }
+            if (map.getInt(0) != MAGIC) {
+                throw new IOException("Not an undo journal: " + file);
+            }
+            if (map.getInt(4) != VERSION) {
+                logger.warning("Discarding undo history in an older format: " + file);
+                map = null;
+                channel.truncate(0);
+                initialize();
+            } else {
+                repairEnd();
+            }
+        }
+        return map.getInt(0) == RETIRED;
+    }
+
+    private void initialize() throws IOException {
+        channel.write(ByteBuffer.wrap(new byte[1]), INITIAL_CAPACITY - 1);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+        map.putInt(0, MAGIC);
+        map.putInt(4, VERSION);
+        map.putLong(END_OFFSET, HEADER_SIZE);
+    }
+
+    /**
+     * A crash can persist the end offset without all pages of the last record. Walks the
+     * records from the start and cuts the journal back to the last complete one.
+     */
+    private void repairEnd() {
+        int end = (int) Math.min(map.getLong(END_OFFSET), map.capacity());
+        if (end >= HEADER_SIZE + RECORD_OVERHEAD && isComplete(end - map.getInt(end - 4), end)) {
+            return;
+        }
+        int valid = HEADER_SIZE;
+        while (valid < end) {
+            int length = map.getInt(valid);
+            if (length < RECORD_OVERHEAD || valid + length > end || !isComplete(valid, valid + length)) {
+                break;
+            }
+            valid += length;
+        }
+        map.putLong(END_OFFSET, valid);
+    }
+
+    private boolean isComplete(int start, int end) {
+        return start >= HEADER_SIZE && end - start >= RECORD_OVERHEAD
+                && map.getInt(start) == end - start && map.getInt(end - 4) == end - start
+                && map.get(start + 4) < OperationRecord.Type.values().length;
+    }
+
+    /**
+     * Grows the file, or drops the oldest half of the records once it is at its maximum size.
+     * @return offset where a record of length bytes can be written
+     */
+    private int ensureCapacity(int length) throws IOException {
+        int end = (int) map.getLong(END_OFFSET);
+        if (end + length <= map.capacity()) {
+            return end;
+        }
+        if (map.capacity() < MAX_CAPACITY) {
+            int capacity = Math.min(MAX_CAPACITY, Math.max(map.capacity() * 2, end + length));
+            channel.write(ByteBuffer.wrap(new byte[1]), capacity - 1);
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            if (end + length <= capacity) {
+                return end;
+            }
+        }
+        // Undo reaches back far enough long before this; keep the newest half
+        int start = HEADER_SIZE;
+        while (end - start > map.capacity() / 2 - length) {
+            start += map.getInt(start);
+        }
+        byte[] kept = new byte[end - start];
+        map.get(start, kept);
+        compact(kept);
+        return HEADER_SIZE + kept.length;
+    }
+
+    /**
+     * Replaces the journal with a new file holding only the kept records. The new file is
+     * complete and on disk before it is renamed over the journal, so a crash at any point leaves
+     * one of the two whole; copying the records down in place could leave neither.
+     */
+    private void compact(byte[] kept) throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        FileChannel next = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileLock nextLock;
+        MappedByteBuffer nextMap;
+        try {
+            // Nobody else can open it yet, so this lock is held before anyone can wait for it
+            nextLock = next.lock();
+            next.write(ByteBuffer.wrap(new byte[1]), map.capacity() - 1);
+            nextMap = next.map(FileChannel.MapMode.READ_WRITE, 0, map.capacity());
+            nextMap.putInt(0, MAGIC);
+            nextMap.putInt(4, VERSION);
+            nextMap.put(HEADER_SIZE, kept);
+            nextMap.putLong(END_OFFSET, HEADER_SIZE + kept.length);
+            nextMap.force();
+            Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            next.close();
+            throw e;
+        }
+        // Processes that still have the old file open see this once they get its lock
+        map.putInt(0, RETIRED);
+        held.release();
+        channel.close();
+        channel = next;
+        map = nextMap;
+        held = nextLock;
+    }
+
+    private void write(OperationRecord record, long group) throws IOException {
+        byte[] source = record.getSource().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] target = record.getTarget().toString().getBytes(StandardCharsets.UTF_8);
+        if (source.length > 0xFFFF || target.length > 0xFFFF) {
+            throw new IOException("Path too long for the undo journal: " + record);
+        }
+        PathFingerprint fingerprint = record.getTargetFingerprint();
+        byte[] fileKey = fingerprint != null ? fingerprint.getFileKey().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (fileKey.length > 0xFFFF) {
+            throw new IOException("File key too long for the undo journal: " + record);
+        }
+        int length = RECORD_OVERHEAD + 2 + source.length + 2 + target.length
+                + 1 + (fingerprint != null ? FINGERPRINT_SIZE + 2 + fileKey.length : 0);
+        int end = ensureCapacity(length);
+        map.putInt(end, length);
+        map.put(end + 4, (byte) record.getType().ordinal());
+        map.putLong(end + 5, record.getTimeMillis());
+        map.putLong(end + 13, group);
+        int position = putString(end + 21, source);
+        position = putString(position, target);
+        map.put(position++, (byte) (fingerprint != null ? 1 : 0));
+        if (fingerprint != null) {
+            map.putLong(position, fingerprint.getModifiedMicros());
+            map.putLong(position + 8, fingerprint.getSize());
+            map.putLong(position + 16, fingerprint.getFiles());
+            map.putLong(position + 24, fingerprint.getDirectories());
+            position = putString(position + FINGERPRINT_SIZE, fileKey);
+        }
+        map.putInt(position, length);
+        // Publish the record only once it is complete
+        map.putLong(END_OFFSET, end + length);
+        appended++;
+    }
+
+    private OperationRecord read(int start) throws IOException {
+        int typeIndex = map.get(start + 4);
+        if (typeIndex < 0 || typeIndex >= OperationRecord.Type.values().length) {
+            throw new IOException("Corrupt undo journal record at offset " + start + " in " + file);
+        }
+        long time = map.getLong(start + 5);
+        int sourceLength = Short.toUnsignedInt(map.getShort(start + 21));
+        String source = getString(start + 23, sourceLength);
+        int targetOffset = start + 23 + sourceLength;
+        int targetLength = Short.toUnsignedInt(map.getShort(targetOffset));
+        String target = getString(targetOffset + 2, targetLength);
+        int position = targetOffset + 2 + targetLength;
+        PathFingerprint fingerprint = null;
+        if (map.get(position++) != 0) {
+            int keyOffset = position + FINGERPRINT_SIZE;
+            fingerprint = new PathFingerprint(getString(keyOffset + 2, Short.toUnsignedInt(map.getShort(keyOffset))),
+                    map.getLong(position), map.getLong(position + 8), map.getLong(position + 16),
+                    map.getLong(position + 24));
+        }
+        return new OperationRecord(OperationRecord.Type.values()[typeIndex], Paths.get(source), Paths.get(target), time,
+                fingerprint);
+    }
+
+    private int putString(int offset, byte[] bytes) {
+        map.putShort(offset, (short) bytes.length);
+        map.put(offset + 2, bytes);
+        return offset + 2 + bytes.length;
+    }
+
+    private String getString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        map.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.operations;
+
+import org.example.api.DigestAlgorithm;
+import org.example.api.TransferProgress;
+import org.example.config.AppConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recursive directory copy that spreads traversal and file copies across a fork-join pool.
+ * Each directory is listed by its own task; subdirectories are forked and regular files are
+ * copied in small batches so that a tree of many small files keeps every worker busy.
+ * <p>
+ * In resume mode existing directories are reused and files that already match the source by
+ * size and modification time are skipped, which lets an interrupted copy pick up where it
+ * stopped. In durable mode every file and directory is fsynced once written.
+ * <p>
+ * With {@link #withDigests} every regular file is digested as it is copied and, if asked,
+ * read back and checked against that digest.
+ */
+public class ParallelTreeCopier {
+    private static final int FILE_BATCH_SIZE = 32;
+
+    private final ForkJoinPool pool;
+    private final boolean resume;
+    private final boolean durable;
+    private final LongAdder filesCopied = new LongAdder();
+    private final LongAdder filesSkipped = new LongAdder();
+    private final LongAdder directoriesCopied = new LongAdder();
+    private final LongAdder bytesCopied = new LongAdder();
+    private final Map<Path, String> digests = new ConcurrentHashMap<>();
+    private DigestAlgorithm algorithm;
+    private boolean verify;
+
+    public ParallelTreeCopier(ForkJoinPool pool) {
+        this(pool, false, false);
+    }
+
+    public ParallelTreeCopier(ForkJoinPool pool, boolean resume, boolean durable) {
+        this.pool = pool;
+        this.resume = resume;
+        this.durable = durable;
+    }
+
+    /**
+     * Computes a digest of every regular file that is copied.
+     * @param algorithm digest to compute, or null for none
+     * @param verify read every copied file back and fail if it does not match its digest
+     */
+    public ParallelTreeCopier withDigests(DigestAlgorithm algorithm, boolean verify) {
+        this.algorithm = algorithm;
+        this.verify = verify && algorithm != null;
+        return this;
+    }
+
+    /**
+     * Copies the tree rooted at source to target, preserving attributes.
+     * Unless resuming, the target must not exist yet.
+     */
+    public void copy(Path source, Path target) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (!attrs.isDirectory()) {
+            copyEntry(source, target, attrs);
+            return;
+        }
+        try {
+            pool.invoke(new DirectoryTask(source, target, attrs));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long getFilesCopied() {
+        return filesCopied.sum();
+    }
+
+    public long getFilesSkipped() {
+        return filesSkipped.sum();
+    }
+
+    public long getDirectoriesCopied() {
+        return directoriesCopied.sum();
+    }
+
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    /**
+     * @return hex digests of the copied regular files by source path, empty without
+     * {@link #withDigests}
+     */
+    public Map<Path, String> getDigests() {
+        return digests;
+    }
+
+    private void copyEntry(Path source, Path target, BasicFileAttributes attrs) throws IOException {
+        if (resume && Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            if (isUpToDate(attrs, target)) {
+                filesSkipped.increment();
+                return;
+            }
+            Files.delete(target);
+        }
+        String digest = null;
+        if (attrs.isRegularFile() && algorithm != null) {
+            digest = ChannelTransfer.copy(source, target, TransferProgress.NONE, algorithm);
+        } else if (attrs.isRegularFile() && attrs.size() >= AppConfig.largeFileThreshold()) {
+            ChannelTransfer.copy(source, target, TransferProgress.NONE);
+        } else {
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+        }
+        if (durable && attrs.isRegularFile()) {
+            sync(target);
+        }
+        if (digest != null) {
+            if (verify) {
+                ChannelTransfer.verify(target, algorithm, digest);
+            }
+            digests.put(source, digest);
+        }
+        if (attrs.isRegularFile()) {
+            bytesCopied.add(attrs.size());
+        }
+        filesCopied.increment();
+    }
+
+    private static boolean isUpToDate(BasicFileAttributes sourceAttrs, Path target) throws IOException {
+        BasicFileAttributes targetAttrs = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        return targetAttrs.isRegularFile() == sourceAttrs.isRegularFile()
+                && targetAttrs.size() == sourceAttrs.size()
+                && targetAttrs.lastModifiedTime().equals(sourceAttrs.lastModifiedTime());
+    }
+
+    private static void sync(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform; files must sync
+            if (!Files.isDirectory(path)) {
+                throw e;
+            }
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path source;
+        private final Path target;
+        private final BasicFileAttributes attrs;
+
+        DirectoryTask(Path source, Path target, BasicFileAttributes attrs) {
+            this.source = source;
+            this.target = target;
+            this.attrs = attrs;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (!resume || !Files.isDirectory(target, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectory(target);
+                }
+                List<RecursiveAction> subtasks = new ArrayList<>();
+                List<PendingFile> batch = new ArrayList<>(FILE_BATCH_SIZE);
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                    for (Path entry : entries) {
+                        BasicFileAttributes entryAttrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (entryAttrs.isDirectory()) {
+                            subtasks.add(new DirectoryTask(entry, target.resolve(entry.getFileName().toString()), entryAttrs));
+                        } else {
+                            batch.add(new PendingFile(entry, entryAttrs));
+                            if (batch.size() == FILE_BATCH_SIZE) {
+                                subtasks.add(new FileBatchTask(batch, target));
+                                batch = new ArrayList<>(FILE_BATCH_SIZE);
+                            }
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    subtasks.add(new FileBatchTask(batch, target));
+                }
+                invokeAll(subtasks);
+                // Attributes go on last: creating children bumps the mtime and a read-only
+                // directory would refuse them
+                FileAttributeSupport.copyAttributes(attrs, source, target);
+                if (durable) {
+                    sync(target);
+                }
+                directoriesCopied.increment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final List<PendingFile> files;
+        private final Path targetDir;
+
+        FileBatchTask(List<PendingFile> files, Path targetDir) {
+            this.files = files;
+            this.targetDir = targetDir;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (PendingFile file : files) {
+                    copyEntry(file.path, targetDir.resolve(file.path.getFileName().toString()), file.attrs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class PendingFile {
+        final Path path;
+        final BasicFileAttributes attrs;
+
+        PendingFile(Path path, BasicFileAttributes attrs) {
+            this.path = path;
+            this.attrs = attrs;
+        }
+    }
+}
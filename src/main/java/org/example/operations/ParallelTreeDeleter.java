@@ -0,0 +1,118 @@
+package org.example.operations;
+
+import org.example.api.OperationResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recursive delete on a fork-join pool. Every directory is emptied by its own task, with
+ * subdirectories forked and files unlinked in batches, and is removed once all of its
+ * children are gone. Symbolic links are removed, never followed.
+ */
+public class ParallelTreeDeleter {
+    private static final int FILE_BATCH_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final LongAdder files = new LongAdder();
+    private final LongAdder directories = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    public ParallelTreeDeleter(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Deletes path and, for a directory, everything below it.
+     * @return totals of what was removed by this call
+     */
+    public OperationResult delete(Path path) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (attrs.isDirectory()) {
+            try {
+                pool.invoke(new DirectoryTask(path));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        } else {
+            Files.delete(path);
+            files.increment();
+            bytes.add(attrs.size());
+        }
+        return new OperationResult(files.sum(), directories.sum(), bytes.sum());
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path dir;
+
+        DirectoryTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                List<RecursiveAction> subtasks = new ArrayList<>();
+                List<Path> batch = new ArrayList<>(FILE_BATCH_SIZE);
+                long batchBytes = 0;
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                    for (Path entry : entries) {
+                        BasicFileAttributes attrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            subtasks.add(new DirectoryTask(entry));
+                        } else {
+                            batch.add(entry);
+                            batchBytes += attrs.size();
+                            if (batch.size() == FILE_BATCH_SIZE) {
+                                subtasks.add(new FileBatchTask(batch, batchBytes));
+                                batch = new ArrayList<>(FILE_BATCH_SIZE);
+                                batchBytes = 0;
+                            }
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    subtasks.add(new FileBatchTask(batch, batchBytes));
+                }
+                invokeAll(subtasks);
+                Files.delete(dir);
+                directories.increment();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final List<Path> batch;
+        private final long batchBytes;
+
+        FileBatchTask(List<Path> batch, long batchBytes) {
+            this.batch = batch;
+            this.batchBytes = batchBytes;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (Path file : batch) {
+                    Files.delete(file);
+                    files.increment();
+                }
+                bytes.add(batchBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
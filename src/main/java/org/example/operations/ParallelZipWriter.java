@@ -0,0 +1,344 @@
+package org.example.operations;
+
+import org.example.api.DigestAlgorithm;
+import org.example.api.TransferProgress;
+import org.example.config.AppConfig;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Scatter/gather zip creation. Workers deflate entries concurrently into {@link SpillBuffer}s
+ * and the calling thread appends the finished entries to the archive in submission order.
+ * Only a bounded window of entries is in flight, which caps the memory held by buffers.
+ * <p>
+ * Entries that {@link CompressionPolicy} considers incompressible are stored: the worker only
+ * computes their CRC and the writer copies the file straight into the archive.
+ * <p>
+ * With {@link #withDigests} the workers also digest each file in the same pass as the CRC, and
+ * the finished archive can be read back and every entry checked against the digest of its
+ * source.
+ */
+public class ParallelZipWriter {
+    private static final int SPILL_THRESHOLD = 1 << 20;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private final ForkJoinPool pool;
+    private final int level;
+    private final int window;
+    private final LongAdder storedEntries = new LongAdder();
+    private final Map<Path, String> digests = new HashMap<>();
+    private long sourceBytes;
+    private DigestAlgorithm algorithm;
+    private boolean verify;
+
+    public ParallelZipWriter(ForkJoinPool pool, int level) {
+        this.pool = pool;
+        this.level = level;
+        this.window = Math.max(2, AppConfig.workerThreads() * 2);
+    }
+
+    /**
+     * Computes a digest of every file that is compressed.
+     * @param algorithm digest to compute, or null for none
+     * @param verify read the archive back once written and fail if an entry does not match
+     * the digest of its source
+     */
+    public ParallelZipWriter withDigests(DigestAlgorithm algorithm, boolean verify) {
+        this.algorithm = algorithm;
+        this.verify = verify && algorithm != null;
+        return this;
+    }
+
+    /**
+     * Zips a file or the content of a directory into target.
+     * @return number of entries written
+     */
+    public long write(Path source, Path target) throws IOException {
+        List<Path> files;
+        Path base;
+        if (Files.isDirectory(source)) {
+            base = source;
+            try (Stream<Path> walk = Files.walk(source)) {
+                files = walk.filter(path -> !Files.isDirectory(path)).collect(Collectors.toList());
+            }
+        } else {
+            base = source.getParent();
+            files = List.of(source);
+        }
+
+        Deque<ForkJoinTask<CompressedEntry>> inFlight = new ArrayDeque<>();
+        Iterator<Path> pending = files.iterator();
+        Map<String, String> entryDigests = new HashMap<>();
+        long written = 0;
+        try (ZipArchiveWriter archive = new ZipArchiveWriter(target)) {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (pending.hasNext() && inFlight.size() < window) {
+                    Path file = pending.next();
+                    String name = base == null ? file.toString() : base.relativize(file).toString();
+                    inFlight.add(pool.submit(() -> compress(file, name.replace('\\', '/'))));
+                }
+                CompressedEntry entry = join(inFlight.poll());
+                try {
+                    archive.writeEntry(entry.name, entry.method, entry.crc, entry.compressedSize(), entry.size,
+                            entry.lastModified, entry.permissions, entry::writeTo);
+                } finally {
+                    entry.discard();
+                }
+                sourceBytes += entry.size;
+                if (entry.digest != null) {
+                    digests.put(entry.source, entry.digest);
+                    entryDigests.put(entry.name, entry.digest);
+                }
+                written++;
+            }
+        } catch (IOException | RuntimeException e) {
+            discardAll(inFlight);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        if (verify) {
+            try {
+                verifyArchive(target, entryDigests);
+            } catch (IOException e) {
+                Files.deleteIfExists(target);
+                throw e;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * @return entries written without compression by the last {@link #write} calls
+     */
+    public long getStoredEntries() {
+        return storedEntries.sum();
+    }
+
+    /**
+     * @return uncompressed bytes of the entries written by the last {@link #write} calls
+     */
+    public long getSourceBytes() {
+        return sourceBytes;
+    }
+
+    /**
+     * @return hex digests of the compressed files by source path, empty without
+     * {@link #withDigests}
+     */
+    public Map<Path, String> getDigests() {
+        return digests;
+    }
+
+    /**
+     * Inflates every entry of the archive, read past the page cache where possible, and compares
+     * it with the digest its source had. ZipInputStream checks the CRC of each entry as well.
+     */
+    private void verifyArchive(Path archive, Map<String, String> expected) throws IOException {
+        byte[] bytes = new byte[IO_BUFFER_SIZE];
+        int checked = 0;
+        try (ZipInputStream in = new ZipInputStream(new UncachedInputStream(archive), StandardCharsets.UTF_8)) {
+            for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+                StreamingDigest digest = new StreamingDigest(algorithm);
+                for (int read = in.read(bytes); read >= 0; read = in.read(bytes)) {
+                    digest.update(bytes, 0, read);
+                }
+                String actual = digest.finish();
+                if (!actual.equals(expected.get(entry.getName()))) {
+                    throw new IOException(String.format("Verification failed for entry %s of %s: %s %s, expected %s",
+                            entry.getName(), archive, algorithm.getLabel(), actual, expected.get(entry.getName())));
+                }
+                checked++;
+            }
+        }
+        if (checked != expected.size()) {
+            throw new IOException(String.format("Verification failed for %s: %d of %d entries found",
+                    archive, checked, expected.size()));
+        }
+    }
+
+    private CompressedEntry compress(Path file, String name) {
+        try {
+            if (CompressionPolicy.shouldStore(file)) {
+                return store(file, name);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return deflate(file, name);
+    }
+
+    private CompressedEntry store(Path file, String name) throws IOException {
+        BasicFileAttributes attrs = FileAttributeSupport.readWithPermissions(file);
+        CRC32 crc = new CRC32();
+        StreamingDigest digest = algorithm != null ? new StreamingDigest(algorithm) : null;
+        long size;
+        try (CheckedOutputStream out = new CheckedOutputStream(digesting(OutputStream.nullOutputStream(), digest), crc)) {
+            size = ChannelTransfer.transferTo(file, Channels.newChannel(out), TransferProgress.NONE);
+        }
+        storedEntries.increment();
+        return new CompressedEntry(name, file, ZipEntry.STORED, crc.getValue(), size, attrs.lastModifiedTime(),
+                FileAttributeSupport.permissionBits(attrs), finish(digest), null, file);
+    }
+
+    private CompressedEntry deflate(Path file, String name) {
+        SpillBuffer buffer = new SpillBuffer(SPILL_THRESHOLD);
+        Deflater deflater = new Deflater(level, true);
+        try {
+            BasicFileAttributes attrs = FileAttributeSupport.readWithPermissions(file);
+            CRC32 crc = new CRC32();
+            StreamingDigest digest = algorithm != null ? new StreamingDigest(algorithm) : null;
+            long size;
+            try (CheckedOutputStream out = new CheckedOutputStream(
+                    digesting(new DeflaterOutputStream(buffer, deflater, IO_BUFFER_SIZE), digest), crc)) {
+                size = ChannelTransfer.transferTo(file, Channels.newChannel(out), TransferProgress.NONE);
+            }
+            return new CompressedEntry(name, file, ZipEntry.DEFLATED, crc.getValue(), size,
+                    attrs.lastModifiedTime(), FileAttributeSupport.permissionBits(attrs), finish(digest), buffer, null);
+        } catch (IOException e) {
+            discardQuietly(buffer);
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static OutputStream digesting(OutputStream out, StreamingDigest digest) {
+        return digest != null ? digest.tee(out) : out;
+    }
+
+    private static String finish(StreamingDigest digest) {
+        return digest != null ? digest.finish() : null;
+    }
+
+    private static CompressedEntry join(ForkJoinTask<CompressedEntry> task) throws IOException {
+        try {
+            return task.join();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void discardAll(Deque<ForkJoinTask<CompressedEntry>> inFlight) {
+        for (ForkJoinTask<CompressedEntry> task : inFlight) {
+            try {
+                task.join().discard();
+            } catch (IOException | RuntimeException ignored) {
+                // Already failed or best effort removal of a temp file
+            }
+        }
+    }
+
+    private static void discardQuietly(SpillBuffer buffer) {
+        try {
+            buffer.discard();
+        } catch (IOException ignored) {
+            // Best effort removal of a temp file
+        }
+    }
+
+    private static class CompressedEntry {
+        final String name;
+        final Path source;
+        final int method;
+        final long crc;
+        final long size;
+        final FileTime lastModified;
+        final int permissions;
+        // Null unless digests were asked for
+        final String digest;
+        // Exactly one of the two is set: deflated bytes, or the file to store as is
+        final SpillBuffer data;
+        final Path storedFile;
+
+        CompressedEntry(String name, Path source, int method, long crc, long size, FileTime lastModified,
+                        int permissions, String digest, SpillBuffer data, Path storedFile) {
+            this.name = name;
+            this.source = source;
+            this.method = method;
+            this.crc = crc;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.permissions = permissions;
+            this.digest = digest;
+            this.data = data;
+            this.storedFile = storedFile;
+        }
+
+        long compressedSize() {
+            return data != null ? data.size() : size;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (data != null) {
+                data.writeTo(out);
+                return;
+            }
+            long copied;
+            try (InputStream in = Files.newInputStream(storedFile)) {
+                copied = in.transferTo(new BoundedOutputStream(out, size));
+            }
+            if (copied != size) {
+                throw new IOException("File changed while it was being compressed: " + storedFile);
+            }
+        }
+
+        void discard() throws IOException {
+            if (data != null) {
+                data.discard();
+            }
+        }
+    }
+
+    /**
+     * Fails instead of writing past the size that was already recorded in the local header.
+     */
+    private static class BoundedOutputStream extends FilterOutputStream {
+        private long remaining;
+
+        BoundedOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.remaining = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > remaining) {
+                throw new IOException("Stored entry grew while it was being compressed");
+            }
+            out.write(b, off, len);
+            remaining -= len;
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package org.example.operations;
+
+import org.example.config.AppConfig;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Names of every file and directory below a set of roots, kept on disk for locate-style
+ * lookups without walking the tree. The index is memory-mapped read-only, so a query costs
+ * page faults on the part of the file it reads rather than heap, and a query limited to one
+ * subtree only reads that subtree's records.
+ * <p>
+ * Layout: a header of magic, version, directory and entry counts and the roots, then one
+ * record per directory, then a block table and its offset as the last 8 bytes:
+ * <pre>
+ * record: [varint shared][varint n][path suffix] [long mtime] [varint children][varint bytes]
+ * child:  [byte flags][varint shared][varint n][name suffix]
+ * </pre>
+ * Directory paths are front-coded against the previous record, and names against the
+ * previous name in the same directory. Every {@link #BLOCK_SIZE}-th record holds its path in
+ * full and is listed in the block table, which makes finding a directory a binary search.
+ * Records are sorted with the separator below every other character, so a directory is
+ * directly followed by all of its descendants.
+ * <p>
+ * {@link #update} rebuilds the file from a parallel walk, but a directory whose modification
+ * time is unchanged is not listed again: its children are copied from the old index as they
+ * are. Creating, deleting or renaming an entry changes the time of its directory, so only
+ * directories that actually changed are read.
+ */
+public class PathIndex implements Closeable {
+    private static final Logger logger = Logger.getLogger(PathIndex.class.getName());
+    private static final int MAGIC = 0x464d4c49; // "FMLI"
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 64;
+    private static final byte FLAG_DIRECTORY = 1;
+    private static final char SEPARATOR = '/';
+    private static final Comparator<String> PATH_ORDER = PathIndex::comparePaths;
+
+    private final Path file;
+    private final ForkJoinPool pool;
+    private View view;
+    // Identifies the file the view was mapped from, to notice a rebuild by another process
+    private String mappedVersion;
+    private final LongAdder listed = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+
+    public PathIndex(Path file, ForkJoinPool pool) {
+        this.file = file;
+        this.pool = pool;
+    }
+
+    /**
+     * @return the index in the user's data directory, which need not exist yet
+     */
+    public static PathIndex openDefault() {
+        return new PathIndex(AppConfig.dataDirectory().resolve("locate.index"), WorkerPool.shared());
+    }
+
+    /**
+     * @return the indexed roots; empty if there is no index
+     */
+    public List<Path> getRoots() throws IOException {
+        View current = view();
+        return current == null ? List.of() : current.roots;
+    }
+
+    /**
+     * @return true if dir lies below one of the indexed roots
+     */
+    public boolean covers(Path dir) throws IOException {
+        Path absolute = dir.toAbsolutePath().normalize();
+        for (Path root : getRoots()) {
+            if (absolute.startsWith(root)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getDirectoryCount() throws IOException {
+        View current = view();
+        return current == null ? 0 : current.directories;
+    }
+
+    public long getEntryCount() throws IOException {
+        View current = view();
+        return current == null ? 0 : current.entries;
+    }
+
+    public long getSizeInBytes() throws IOException {
+        View current = view();
+        return current == null ? 0 : current.buffer.capacity();
+    }
+
+    /**
+     * @return directories read from disk by the last {@link #update}
+     */
+    public long getListedDirectories() {
+        return listed.sum();
+    }
+
+    /**
+     * @return directories the last {@link #update} took unchanged from the old index
+     */
+    public long getReusedDirectories() {
+        return reused.sum();
+    }
+
+    /**
+     * Adds roots to the index and brings every root up to date. Roots that lie inside another
+     * root are folded into it; roots that no longer exist are dropped.
+     */
+    public synchronized void update(List<Path> addedRoots) throws IOException {
+        listed.reset();
+        reused.reset();
+        View old = view();
+        List<Path> candidates = new ArrayList<>(old == null ? List.of() : old.roots);
+        for (Path root : addedRoots) {
+            candidates.add(root.toAbsolutePath().normalize());
+        }
+        List<Path> roots = new ArrayList<>();
+        for (Path root : candidates) {
+            boolean nested = candidates.stream().anyMatch(other -> !other.equals(root) && root.startsWith(other));
+            if (!nested && !roots.contains(root)) {
+                if (Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+                    roots.add(root);
+                } else {
+                    logger.warning("Dropping index root that is not a directory: " + root);
+                }
+            }
+        }
+
+        Queue<DirectoryRecord> records = new ConcurrentLinkedQueue<>();
+        for (Path root : roots) {
+            pool.invoke(new ScanTask(root, old, records));
+        }
+        List<DirectoryRecord> sorted = new ArrayList<>(records);
+        sorted.sort(Comparator.comparing(record -> record.path, PATH_ORDER));
+        write(roots, sorted);
+    }
+
+    /**
+     * Reports indexed entries whose name matches, directory by directory in index order.
+     * @param under only entries below this directory; null for the whole index
+     * @param fullPath test the matcher against the whole path instead of the name
+     * @param results receives every match and returns false to end the query
+     * @return number of matches reported
+     */
+    public long query(Path under, Predicate<String> matcher, boolean fullPath, Predicate<Path> results) throws IOException {
+        View current = view();
+        if (current == null) {
+            return 0;
+        }
+        String bound = under == null ? null : under.toAbsolutePath().normalize().toString();
+        String prefix = bound == null || bound.endsWith("/") ? bound : bound + SEPARATOR;
+        RecordCursor records = current.records(bound == null ? 0 : current.findBlock(bound));
+        long matches = 0;
+        while (records.next()) {
+            String dir = records.path();
+            if (bound != null) {
+                if (PATH_ORDER.compare(dir, bound) < 0) {
+                    continue;
+                }
+                if (!dir.equals(bound) && !dir.startsWith(prefix)) {
+                    break;
+                }
+            }
+            String dirPrefix = dir.endsWith("/") ? dir : dir + SEPARATOR;
+            ChildCursor children = records.children();
+            while (children.next()) {
+                String name = children.name();
+                if (matcher.test(fullPath ? dirPrefix + name : name)) {
+                    Path path;
+                    try {
+                        path = Paths.get(dir, name);
+                    } catch (InvalidPathException e) {
+                        continue;
+                    }
+                    matches++;
+                    if (!results.test(path)) {
+                        return matches;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public synchronized void close() {
+        view = null;
+        mappedVersion = null;
+    }
+
+    /**
+     * @return the mapping of the current index file, remapped if the file was replaced since;
+     * null if there is no usable index
+     */
+    private synchronized View view() throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            view = null;
+            mappedVersion = null;
+            return null;
+        }
+        String version = attrs.fileKey() + "/" + attrs.lastModifiedTime() + "/" + attrs.size();
+        if (!version.equals(mappedVersion)) {
+            view = View.map(file);
+            mappedVersion = version;
+        }
+        return view;
+    }
+
+    private void write(List<Path> roots, List<DirectoryRecord> records) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long entries = 0;
+        for (DirectoryRecord record : records) {
+            entries += record.childCount;
+        }
+        List<Integer> blocks = new ArrayList<>();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(records.size());
+            out.writeLong(entries);
+            out.writeInt(roots.size());
+            for (Path root : roots) {
+                byte[] bytes = root.toString().getBytes(StandardCharsets.UTF_8);
+                writeVarint(out, bytes.length);
+                out.write(bytes);
+            }
+            byte[] previous = new byte[0];
+            for (int i = 0; i < records.size(); i++) {
+                DirectoryRecord record = records.get(i);
+                byte[] path = record.path.getBytes(StandardCharsets.UTF_8);
+                int shared = 0;
+                if (i % BLOCK_SIZE == 0) {
+                    blocks.add(out.size());
+                } else {
+                    shared = sharedPrefix(previous, previous.length, path, path.length);
+                }
+                writeVarint(out, shared);
+                writeVarint(out, path.length - shared);
+                out.write(path, shared, path.length - shared);
+                out.writeLong(record.modified);
+                writeVarint(out, record.childCount);
+                writeVarint(out, record.children.length);
+                out.write(record.children);
+                previous = path;
+            }
+            int blockTable = out.size();
+            for (int offset : blocks) {
+                out.writeLong(offset);
+            }
+            out.writeLong(blockTable);
+            if (out.size() == Integer.MAX_VALUE) {
+                // DataOutputStream stops counting there, and a mapping cannot be larger
+                throw new IOException("Index would exceed 2 GB");
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Orders paths like a depth-first walk: the separator sorts below every other character,
+     * so "a/b/c" comes before "a/b-c" and a subtree is one contiguous range.
+     */
+    static int comparePaths(String a, String b) {
+        int length = Math.min(a.length(), b.length());
+        for (int i = 0; i < length; i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                return (x == SEPARATOR ? -1 : x) - (y == SEPARATOR ? -1 : y);
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private static int sharedPrefix(byte[] a, int aLength, byte[] b, int bLength) {
+        int length = Math.min(aLength, bLength);
+        int i = 0;
+        while (i < length && a[i] == b[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void writeVarint(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /**
+     * Children of one directory, encoded in the record format, with the names of the
+     * subdirectories needed to continue the walk.
+     */
+    private static class DirectoryRecord {
+        final String path;
+        final long modified;
+        final int childCount;
+        final byte[] children;
+
+        DirectoryRecord(String path, long modified, int childCount, byte[] children) {
+            this.path = path;
+            this.modified = modified;
+            this.childCount = childCount;
+            this.children = children;
+        }
+    }
+
+    private class ScanTask extends RecursiveAction {
+        private final Path dir;
+        private final View old;
+        private final Queue<DirectoryRecord> records;
+
+        ScanTask(Path dir, View old, Queue<DirectoryRecord> records) {
+            this.dir = dir;
+            this.old = old;
+            this.records = records;
+        }
+
+        @Override
+        protected void compute() {
+            List<Path> subdirectories = new ArrayList<>();
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(dir, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                long modified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+                String path = dir.toString();
+                RecordCursor previous = old == null ? null : old.find(path);
+                if (previous != null && previous.modified == modified) {
+                    records.add(new DirectoryRecord(path, modified, previous.childCount, previous.childrenBytes()));
+                    for (String name : previous.subdirectories()) {
+                        try {
+                            subdirectories.add(dir.resolve(name));
+                        } catch (InvalidPathException e) {
+                            logger.fine("Not indexing " + dir + "/" + name + ": " + e.getMessage());
+                        }
+                    }
+                    reused.increment();
+                } else {
+                    records.add(list(path, modified, subdirectories));
+                    listed.increment();
+                }
+            } catch (IOException e) {
+                // Removed or unreadable since its parent was listed; it stays out of the index
+                logger.fine("Not indexing " + dir + ": " + e.getMessage());
+                return;
+            }
+            List<ScanTask> subtasks = new ArrayList<>(subdirectories.size());
+            for (Path subdirectory : subdirectories) {
+                subtasks.add(new ScanTask(subdirectory, old, records));
+            }
+            invokeAll(subtasks);
+        }
+
+        private DirectoryRecord list(String path, long modified, List<Path> subdirectories) throws IOException {
+            List<Path> entries = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path entry : stream) {
+                    entries.add(entry);
+                }
+            } catch (DirectoryIteratorException e) {
+                throw e.getCause();
+            }
+            entries.sort(Comparator.comparing(entry -> entry.getFileName().toString()));
+            ByteArrayOutputStream children = new ByteArrayOutputStream(entries.size() * 16);
+            byte[] previous = new byte[0];
+            for (Path entry : entries) {
+                boolean directory = Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS);
+                if (directory) {
+                    subdirectories.add(entry);
+                }
+                byte[] bytes = entry.getFileName().toString().getBytes(StandardCharsets.UTF_8);
+                int shared = sharedPrefix(previous, previous.length, bytes, bytes.length);
+                children.write(directory ? FLAG_DIRECTORY : 0);
+                writeVarint(children, shared);
+                writeVarint(children, bytes.length - shared);
+                children.write(bytes, shared, bytes.length - shared);
+                previous = bytes;
+            }
+            return new DirectoryRecord(path, modified, entries.size(), children.toByteArray());
+        }
+    }
+
+    /**
+     * Read-only mapping of one version of the index file. Reads use absolute positions only,
+     * so one view can serve concurrent queries.
+     */
+    private static class View {
+        final ByteBuffer buffer;
+        final long directories;
+        final long entries;
+        final List<Path> roots;
+        final int firstRecord;
+        final int blockTable;
+        final int blockCount;
+
+        private View(ByteBuffer buffer, long directories, long entries, List<Path> roots, int firstRecord, int blockTable) {
+            this.buffer = buffer;
+            this.directories = directories;
+            this.entries = entries;
+            this.roots = roots;
+            this.firstRecord = firstRecord;
+            this.blockTable = blockTable;
+            this.blockCount = (buffer.capacity() - 8 - blockTable) / 8;
+        }
+
+        static View map(Path file) throws IOException {
+            ByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Index too large to map: " + file);
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.capacity() < 36 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                logger.warning("Ignoring index in an unknown format, run 'index' to rebuild it: " + file);
+                return null;
+            }
+            int[] position = {28};
+            int rootCount = buffer.getInt(24);
+            List<Path> roots = new ArrayList<>(rootCount);
+            for (int i = 0; i < rootCount; i++) {
+                int length = readVarint(buffer, position);
+                byte[] bytes = new byte[length];
+                buffer.get(position[0], bytes);
+                position[0] += length;
+                roots.add(Paths.get(new String(bytes, StandardCharsets.UTF_8)));
+            }
+            int blockTable = (int) buffer.getLong(buffer.capacity() - 8);
+            return new View(buffer, buffer.getLong(8), buffer.getLong(16), List.copyOf(roots), position[0], blockTable);
+        }
+
+        RecordCursor records(int block) {
+            return new RecordCursor(this, block == 0 ? firstRecord : (int) buffer.getLong(blockTable + block * 8));
+        }
+
+        /**
+         * @return the last block whose first path is not after path
+         */
+        int findBlock(String path) {
+            int low = 0;
+            int high = blockCount - 1;
+            while (low < high) {
+                int middle = (low + high + 1) >>> 1;
+                RecordCursor first = records(middle);
+                first.next();
+                if (PATH_ORDER.compare(first.path(), path) <= 0) {
+                    low = middle;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            return Math.max(0, low);
+        }
+
+        /**
+         * @return the record of the directory, or null if it is not indexed
+         */
+        RecordCursor find(String path) {
+            RecordCursor records = records(findBlock(path));
+            for (int i = 0; i < BLOCK_SIZE && records.next(); i++) {
+                int order = PATH_ORDER.compare(records.path(), path);
+                if (order == 0) {
+                    return records;
+                }
+                if (order > 0) {
+                    break;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Iterates directory records from a block start, decoding the front-coded paths.
+     */
+    private static class RecordCursor {
+        private final View view;
+        private final int[] position;
+        private byte[] pathBytes = new byte[256];
+        private int pathLength;
+        private String path;
+        long modified;
+        int childCount;
+        int childrenOffset;
+        int childrenLength;
+
+        RecordCursor(View view, int offset) {
+            this.view = view;
+            this.position = new int[]{offset};
+        }
+
+        boolean next() {
+            if (position[0] >= view.blockTable) {
+                return false;
+            }
+            ByteBuffer buffer = view.buffer;
+            int shared = readVarint(buffer, position);
+            int suffix = readVarint(buffer, position);
+            if (shared + suffix > pathBytes.length) {
+                pathBytes = Arrays.copyOf(pathBytes, Math.max(pathBytes.length * 2, shared + suffix));
+            }
+            buffer.get(position[0], pathBytes, shared, suffix);
+            position[0] += suffix;
+            pathLength = shared + suffix;
+            path = null;
+            modified = buffer.getLong(position[0]);
+            position[0] += 8;
+            childCount = readVarint(buffer, position);
+            childrenLength = readVarint(buffer, position);
+            childrenOffset = position[0];
+            position[0] += childrenLength;
+            return true;
+        }
+
+        String path() {
+            if (path == null) {
+                path = new String(pathBytes, 0, pathLength, StandardCharsets.UTF_8);
+            }
+            return path;
+        }
+
+        ChildCursor children() {
+            return new ChildCursor(view.buffer, childrenOffset, childrenOffset + childrenLength);
+        }
+
+        byte[] childrenBytes() {
+            byte[] bytes = new byte[childrenLength];
+            view.buffer.get(childrenOffset, bytes);
+            return bytes;
+        }
+
+        List<String> subdirectories() {
+            List<String> names = new ArrayList<>();
+            ChildCursor children = children();
+            while (children.next()) {
+                if (children.directory) {
+                    names.add(children.name());
+                }
+            }
+            return names;
+        }
+    }
+
+    /**
+     * Iterates the names in one directory record.
+     */
+    private static class ChildCursor {
+        private final ByteBuffer buffer;
+        private final int[] position;
+        private final int end;
+        private byte[] nameBytes = new byte[128];
+        private int nameLength;
+        boolean directory;
+
+        ChildCursor(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.position = new int[]{start};
+            this.end = end;
+        }
+
+        boolean next() {
+            if (position[0] >= end) {
+                return false;
+            }
+            directory = (buffer.get(position[0]++) & FLAG_DIRECTORY) != 0;
+            int shared = readVarint(buffer, position);
+            int suffix = readVarint(buffer, position);
+            if (shared + suffix > nameBytes.length) {
+                nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, shared + suffix));
+            }
+            buffer.get(position[0], nameBytes, shared, suffix);
+            position[0] += suffix;
+            nameLength = shared + suffix;
+            return true;
+        }
+
+        String name() {
+            return new String(nameBytes, 0, nameLength, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static int readVarint(ByteBuffer buffer, int[] position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.operations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Output buffer that stays in memory up to a limit and then moves its content to a temp file.
+ * Used to hold one compressed zip entry until the ordered writer is ready for it.
+ */
+class SpillBuffer extends OutputStream {
+    private final int memoryLimit;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private Path spillFile;
+    private OutputStream spillStream;
+    private long size;
+
+    SpillBuffer(int memoryLimit) {
+        this.memoryLimit = memoryLimit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (spillStream == null && memory.size() + len > memoryLimit) {
+            spillFile = Files.createTempFile("file-manager-zip", ".part");
+            spillStream = Files.newOutputStream(spillFile);
+            memory.writeTo(spillStream);
+            memory = null;
+        }
+        if (spillStream != null) {
+            spillStream.write(b, off, len);
+        } else {
+            memory.write(b, off, len);
+        }
+        size += len;
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Copies the buffered bytes to out. The buffer must have been closed first.
+     */
+    void writeTo(OutputStream out) throws IOException {
+        if (spillFile != null) {
+            Files.copy(spillFile, out);
+        } else {
+            memory.writeTo(out);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (spillStream != null) {
+            spillStream.close();
+        }
+    }
+
+    /**
+     * Releases memory and removes the spill file, if any.
+     */
+    void discard() throws IOException {
+        close();
+        memory = null;
+        if (spillFile != null) {
+            Files.deleteIfExists(spillFile);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.operations;
+
+import org.example.api.DigestAlgorithm;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * One {@link DigestAlgorithm} computation, fed with the buffers that are being copied anyway.
+ */
+final class StreamingDigest {
+    private final CRC32C crc;
+    private final MessageDigest sha;
+
+    StreamingDigest(DigestAlgorithm algorithm) {
+        if (algorithm == DigestAlgorithm.CRC32C) {
+            this.crc = new CRC32C();
+            this.sha = null;
+        } else {
+            this.crc = null;
+            try {
+                this.sha = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is required by every JVM", e);
+            }
+        }
+    }
+
+    /**
+     * Adds the remaining bytes of buffer without moving its position.
+     */
+    void update(ByteBuffer buffer) {
+        if (crc != null) {
+            crc.update(buffer.duplicate());
+        } else {
+            sha.update(buffer.duplicate());
+        }
+    }
+
+    void update(byte[] bytes, int offset, int length) {
+        if (crc != null) {
+            crc.update(bytes, offset, length);
+        } else {
+            sha.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * @return the digest as lowercase hex; the digest cannot be used afterwards
+     */
+    String finish() {
+        if (crc != null) {
+            return String.format("%08x", crc.getValue());
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * @return a stream that adds everything written through it to this digest
+     */
+    OutputStream tee(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                update(b, off, len);
+                out.write(b, off, len);
+            }
+        };
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.operations;
+
+import org.example.api.OperationResult;
+import org.example.api.SyncResult;
+import org.example.api.TransferProgress;
+import org.example.config.AppConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Brings a target tree up to date with a source tree on a fork-join pool, like
+ * {@code rsync -a} without content checks. Each directory task lists the source and the target
+ * directory once and compares the entries by type, size and modification time; times are
+ * compared in microseconds, the precision that Files.copy keeps. Files that are new or differ
+ * are copied in batches that are forked as soon as they fill up, so copying runs alongside the
+ * rest of the comparison, and subdirectories are forked the same way.
+ * <p>
+ * Entries of the target that are not in the source are left alone unless extra entries are to
+ * be deleted. In place mode updates large files that exist on both sides with a
+ * {@link DeltaUpdater}, so that only their changed blocks are written. Symbolic links are
+ * copied as links and count as unchanged while they point to the same place.
+ */
+public class TreeSynchronizer {
+    private static final int FILE_BATCH_SIZE = 32;
+
+    private final ForkJoinPool pool;
+    private final boolean deleteExtra;
+    private final DeltaUpdater deltaUpdater;
+    private final LongAdder copiedFiles = new LongAdder();
+    private final LongAdder copiedBytes = new LongAdder();
+    private final LongAdder unchangedFiles = new LongAdder();
+    private final LongAdder createdDirectories = new LongAdder();
+    private final LongAdder deletedEntries = new LongAdder();
+
+    /**
+     * @param deleteExtra delete entries of the target that do not exist in the source
+     * @param inPlace rewrite changed large files block by block instead of replacing them
+     */
+    public TreeSynchronizer(ForkJoinPool pool, boolean deleteExtra, boolean inPlace) {
+        this.pool = pool;
+        this.deleteExtra = deleteExtra;
+        this.deltaUpdater = inPlace ? new DeltaUpdater(pool) : null;
+    }
+
+    /**
+     * Makes target match source; target and its parents are created as needed.
+     */
+    public SyncResult sync(Path source, Path target) throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(source, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        BasicFileAttributes targetAttrs = readIfExists(target);
+        if (targetAttrs == null && target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try {
+            if (attrs.isDirectory()) {
+                pool.invoke(new DirectoryTask(source, target, attrs, targetAttrs));
+            } else if (targetAttrs != null && isUpToDate(source, attrs, target, targetAttrs)) {
+                unchangedFiles.increment();
+            } else {
+                copyFile(source, target, attrs, targetAttrs);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        long rewritten = deltaUpdater != null ? deltaUpdater.getRewrittenBytes() : 0;
+        long skipped = deltaUpdater != null ? deltaUpdater.getSkippedBytes() : 0;
+        return new SyncResult(copiedFiles.sum(), copiedBytes.sum() + rewritten, skipped, unchangedFiles.sum(),
+                createdDirectories.sum(), deletedEntries.sum());
+    }
+
+    private static BasicFileAttributes readIfExists(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static boolean isUpToDate(Path source, BasicFileAttributes sourceAttrs, Path target,
+                                      BasicFileAttributes targetAttrs) throws IOException {
+        if (sourceAttrs.isSymbolicLink() || targetAttrs.isSymbolicLink()) {
+            return sourceAttrs.isSymbolicLink() && targetAttrs.isSymbolicLink()
+                    && Files.readSymbolicLink(source).equals(Files.readSymbolicLink(target));
+        }
+        return targetAttrs.isRegularFile() == sourceAttrs.isRegularFile()
+                && targetAttrs.size() == sourceAttrs.size()
+                && sameTime(targetAttrs.lastModifiedTime(), sourceAttrs.lastModifiedTime());
+    }
+
+    /**
+     * Compares in microseconds: Files.copy keeps no finer times, and whole seconds would miss a
+     * change made in the same second as the last sync.
+     */
+    private static boolean sameTime(FileTime a, FileTime b) {
+        return a.to(TimeUnit.MICROSECONDS) == b.to(TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Replaces whatever is at target, if anything, with a copy of source.
+     */
+    private void copyFile(Path source, Path target, BasicFileAttributes attrs, BasicFileAttributes targetAttrs)
+            throws IOException {
+        if (deltaUpdater != null && targetAttrs != null && attrs.isRegularFile() && targetAttrs.isRegularFile()
+                && attrs.size() >= AppConfig.largeFileThreshold()) {
+            deltaUpdater.update(source, target);
+            copiedFiles.increment();
+            return;
+        }
+        if (targetAttrs != null) {
+            remove(target, targetAttrs);
+        }
+        if (attrs.isRegularFile() && attrs.size() >= AppConfig.largeFileThreshold()) {
+            ChannelTransfer.copy(source, target, TransferProgress.NONE);
+        } else {
+            Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+        }
+        copiedFiles.increment();
+        if (attrs.isRegularFile()) {
+            copiedBytes.add(attrs.size());
+        }
+    }
+
+    /**
+     * @return number of files and directories removed
+     */
+    private long remove(Path path, BasicFileAttributes attrs) throws IOException {
+        if (attrs.isDirectory()) {
+            OperationResult removed = new ParallelTreeDeleter(pool).delete(path);
+            return removed.getFiles() + removed.getDirectories();
+        }
+        Files.delete(path);
+        return 1;
+    }
+
+    private class DirectoryTask extends RecursiveAction {
+        private final Path source;
+        private final Path target;
+        private final BasicFileAttributes attrs;
+        // Attributes of whatever is at target, null if nothing is
+        private final BasicFileAttributes targetAttrs;
+
+        DirectoryTask(Path source, Path target, BasicFileAttributes attrs, BasicFileAttributes targetAttrs) {
+            this.source = source;
+            this.target = target;
+            this.attrs = attrs;
+            this.targetAttrs = targetAttrs;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                boolean changed = false;
+                Map<String, BasicFileAttributes> existing = new HashMap<>();
+                if (targetAttrs != null && targetAttrs.isDirectory()) {
+                    try (DirectoryStream<Path> entries = Files.newDirectoryStream(target)) {
+                        for (Path entry : entries) {
+                            existing.put(entry.getFileName().toString(),
+                                    Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS));
+                        }
+                    }
+                } else {
+                    if (targetAttrs != null) {
+                        // A file where the directory belongs
+                        remove(target, targetAttrs);
+                    }
+                    Files.createDirectory(target);
+                    createdDirectories.increment();
+                    changed = true;
+                }
+
+                List<ForkJoinTask<Void>> forked = new ArrayList<>();
+                List<PendingFile> batch = new ArrayList<>(FILE_BATCH_SIZE);
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(source)) {
+                    for (Path entry : entries) {
+                        String name = entry.getFileName().toString();
+                        BasicFileAttributes entryAttrs = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        BasicFileAttributes old = existing.remove(name);
+                        Path copy = target.resolve(name);
+                        if (entryAttrs.isDirectory()) {
+                            forked.add(new DirectoryTask(entry, copy, entryAttrs, old).fork());
+                        } else if (old != null && isUpToDate(entry, entryAttrs, copy, old)) {
+                            unchangedFiles.increment();
+                        } else {
+                            batch.add(new PendingFile(entry, entryAttrs, old));
+                            if (batch.size() == FILE_BATCH_SIZE) {
+                                forked.add(new FileBatchTask(batch, target).fork());
+                                batch = new ArrayList<>(FILE_BATCH_SIZE);
+                            }
+                            changed = true;
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    forked.add(new FileBatchTask(batch, target).fork());
+                }
+                if (deleteExtra) {
+                    for (Map.Entry<String, BasicFileAttributes> extra : existing.entrySet()) {
+                        deletedEntries.add(remove(target.resolve(extra.getKey()), extra.getValue()));
+                        changed = true;
+                    }
+                }
+                // Join newest first, so tasks still in this worker's queue run here
+                for (int i = forked.size() - 1; i >= 0; i--) {
+                    forked.get(i).join();
+                }
+                // Attributes go on last: creating children bumps the mtime and a read-only
+                // directory would refuse them
+                if (changed || !sameTime(targetAttrs.lastModifiedTime(), attrs.lastModifiedTime())) {
+                    FileAttributeSupport.copyAttributes(attrs, source, target);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class FileBatchTask extends RecursiveAction {
+        private final List<PendingFile> files;
+        private final Path targetDir;
+
+        FileBatchTask(List<PendingFile> files, Path targetDir) {
+            this.files = files;
+            this.targetDir = targetDir;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                for (PendingFile file : files) {
+                    copyFile(file.path, targetDir.resolve(file.path.getFileName().toString()), file.attrs, file.targetAttrs);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class PendingFile {
+        final Path path;
+        final BasicFileAttributes attrs;
+        final BasicFileAttributes targetAttrs;
+
+        PendingFile(Path path, BasicFileAttributes attrs, BasicFileAttributes targetAttrs) {
+            this.path = path;
+            this.attrs = attrs;
+            this.targetAttrs = targetAttrs;
+        }
+    }
+}
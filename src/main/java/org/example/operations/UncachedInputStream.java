@@ -0,0 +1,124 @@
+package org.example.operations;
+
+import com.sun.nio.file.ExtendedOpenOption;
+import org.example.api.DigestAlgorithm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file with O_DIRECT where the file system allows it, so that data that was just
+ * written is read back from the device rather than from the page cache that still holds it;
+ * the kernel writes dirty pages out before a direct read of their range. Falls back to
+ * ordinary reads elsewhere, e.g. on tmpfs, where the page cache is all there is.
+ * <p>
+ * Direct reads need a buffer address, length and file position aligned to the block size of
+ * the file store, so the file is read in whole aligned chunks.
+ */
+final class UncachedInputStream extends InputStream {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final Path file;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private boolean direct;
+    private long position;
+    private boolean endOfFile;
+
+    UncachedInputStream(Path file) throws IOException {
+        this.file = file;
+        try {
+            int alignment = Math.toIntExact(Files.getFileStore(file).getBlockSize());
+            ByteBuffer aligned = ByteBuffer.allocateDirect(CHUNK_SIZE + alignment).alignedSlice(alignment);
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, ExtendedOpenOption.DIRECT);
+            this.buffer = aligned;
+            this.direct = true;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException | ArithmeticException e) {
+            openCached();
+        }
+        buffer.limit(0);
+    }
+
+    /**
+     * @return the digest of the content of file as stored on the device, where it can tell
+     */
+    static String digest(Path file, DigestAlgorithm algorithm) throws IOException {
+        StreamingDigest digest = new StreamingDigest(algorithm);
+        try (UncachedInputStream in = new UncachedInputStream(file)) {
+            while (in.fill()) {
+                digest.update(in.buffer);
+                in.buffer.position(in.buffer.limit());
+            }
+        }
+        return digest.finish();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return fill() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int count = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, count);
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return false at the end of the file, otherwise true with unread bytes in the buffer
+     */
+    private boolean fill() throws IOException {
+        if (buffer.hasRemaining()) {
+            return true;
+        }
+        if (endOfFile) {
+            return false;
+        }
+        buffer.clear();
+        int read;
+        try {
+            read = channel.read(buffer, position);
+        } catch (IOException e) {
+            // Some file systems accept O_DIRECT on open and refuse the reads
+            if (!direct || position > 0) {
+                throw e;
+            }
+            channel.close();
+            openCached();
+            read = channel.read(buffer, position);
+        }
+        if (read <= 0) {
+            endOfFile = true;
+            buffer.limit(0);
+            return false;
+        }
+        // A short direct read means the end of the file; the next position would not be aligned
+        endOfFile = direct && read < buffer.capacity();
+        position += read;
+        buffer.flip();
+        return true;
+    }
+
+    private void openCached() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        direct = false;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.operations;
+
+import org.example.config.AppConfig;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Shared bounded pool for parallel file operations. Created on first use so that
+ * commands which never go parallel do not pay for it.
+ */
+public final class WorkerPool {
+    private WorkerPool() {
+    }
+
+    public static ForkJoinPool shared() {
+        return Holder.POOL;
+    }
+
+    private static class Holder {
+        // Fork-join worker threads are daemons, so the pool never keeps the JVM alive
+        static final ForkJoinPool POOL = new ForkJoinPool(AppConfig.workerThreads());
+    }
+}
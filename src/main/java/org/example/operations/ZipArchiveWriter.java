@@ -0,0 +1,233 @@
+package org.example.operations;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal ZIP writer for entries whose data is already compressed. ZipOutputStream insists on
+ * deflating the bytes itself, which rules out compressing entries on other threads, so this
+ * class writes the local headers, central directory and (when the archive needs it) the ZIP64
+ * records directly. Sizes and CRCs are known up front, so no data descriptors are used.
+ * <p>
+ * Entries are marked as made on Unix and carry the file type and permission bits in the high
+ * half of their external attributes, which is where unzip restores the mode from.
+ */
+class ZipArchiveWriter implements AutoCloseable {
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_EXTRA_ID = 0x0001;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final int VERSION_DEFAULT = 20;
+    private static final int VERSION_ZIP64 = 45;
+    private static final int MADE_BY_UNIX = 3 << 8;
+    private static final int S_IFREG = 0100000;
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private final OutputStream out;
+    private final List<CentralRecord> central = new ArrayList<>();
+    private final byte[] scratch = new byte[8];
+    private long offset;
+
+    ZipArchiveWriter(Path target) throws IOException {
+        this.out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 20);
+    }
+
+    /**
+     * Appends one regular file entry. The data is written by the caller through {@link EntryData}.
+     * @param permissions POSIX permission bits of the file, e.g. 0644
+     */
+    void writeEntry(String name, int method, long crc, long compressedSize, long size,
+                    FileTime lastModified, int permissions, EntryData data) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        boolean zip64 = compressedSize >= MAX_32 || size >= MAX_32;
+        int dosTime = toDosTime(lastModified);
+        CentralRecord record = new CentralRecord(nameBytes, method, crc, compressedSize, size, dosTime,
+                (long) (S_IFREG | (permissions & 07777)) << 16, offset);
+
+        writeInt(LOCAL_HEADER_SIGNATURE);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(UTF8_FLAG);
+        writeShort(method);
+        writeInt(dosTime);
+        writeInt(crc);
+        writeInt(zip64 ? MAX_32 : compressedSize);
+        writeInt(zip64 ? MAX_32 : size);
+        writeShort(nameBytes.length);
+        writeShort(zip64 ? 20 : 0);
+        write(nameBytes);
+        if (zip64) {
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(16);
+            writeLong(size);
+            writeLong(compressedSize);
+        }
+        data.writeTo(out);
+        offset += compressedSize;
+        central.add(record);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            long centralOffset = offset;
+            for (CentralRecord record : central) {
+                writeCentralRecord(record);
+            }
+            long centralSize = offset - centralOffset;
+            int count = central.size();
+            if (count >= MAX_16 || centralSize >= MAX_32 || centralOffset >= MAX_32) {
+                long zip64EndOffset = offset;
+                writeInt(ZIP64_END_SIGNATURE);
+                writeLong(44);
+                writeShort(MADE_BY_UNIX | VERSION_ZIP64);
+                writeShort(VERSION_ZIP64);
+                writeInt(0);
+                writeInt(0);
+                writeLong(count);
+                writeLong(count);
+                writeLong(centralSize);
+                writeLong(centralOffset);
+
+                writeInt(ZIP64_LOCATOR_SIGNATURE);
+                writeInt(0);
+                writeLong(zip64EndOffset);
+                writeInt(1);
+            }
+            writeInt(END_SIGNATURE);
+            writeShort(0);
+            writeShort(0);
+            writeShort(Math.min(count, MAX_16));
+            writeShort(Math.min(count, MAX_16));
+            writeInt(Math.min(centralSize, MAX_32));
+            writeInt(Math.min(centralOffset, MAX_32));
+            writeShort(0);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeCentralRecord(CentralRecord record) throws IOException {
+        boolean sizeOverflow = record.size >= MAX_32;
+        boolean compressedOverflow = record.compressedSize >= MAX_32;
+        boolean offsetOverflow = record.offset >= MAX_32;
+        int extraLength = (sizeOverflow ? 8 : 0) + (compressedOverflow ? 8 : 0) + (offsetOverflow ? 8 : 0);
+        boolean zip64 = extraLength > 0;
+
+        writeInt(CENTRAL_HEADER_SIGNATURE);
+        writeShort(MADE_BY_UNIX | VERSION_ZIP64);
+        writeShort(zip64 ? VERSION_ZIP64 : VERSION_DEFAULT);
+        writeShort(UTF8_FLAG);
+        writeShort(record.method);
+        writeInt(record.dosTime);
+        writeInt(record.crc);
+        writeInt(compressedOverflow ? MAX_32 : record.compressedSize);
+        writeInt(sizeOverflow ? MAX_32 : record.size);
+        writeShort(record.name.length);
+        writeShort(zip64 ? extraLength + 4 : 0);
+        writeShort(0); // comment length
+        writeShort(0); // disk number
+        writeShort(0); // internal attributes
+        writeInt(record.externalAttributes); // external attributes: mode in the high half
+        writeInt(offsetOverflow ? MAX_32 : record.offset);
+        write(record.name);
+        if (zip64) {
+            // Field order is fixed by the spec: size, compressed size, offset
+            writeShort(ZIP64_EXTRA_ID);
+            writeShort(extraLength);
+            if (sizeOverflow) {
+                writeLong(record.size);
+            }
+            if (compressedOverflow) {
+                writeLong(record.compressedSize);
+            }
+            if (offsetOverflow) {
+                writeLong(record.offset);
+            }
+        }
+    }
+
+    private static int toDosTime(FileTime time) {
+        LocalDateTime t = LocalDateTime.ofInstant(time.toInstant(), ZoneId.systemDefault());
+        if (t.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (t.getYear() - 1980) << 25
+                | t.getMonthValue() << 21
+                | t.getDayOfMonth() << 16
+                | t.getHour() << 11
+                | t.getMinute() << 5
+                | t.getSecond() >> 1;
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        offset += bytes.length;
+    }
+
+    private void writeShort(int value) throws IOException {
+        scratch[0] = (byte) value;
+        scratch[1] = (byte) (value >>> 8);
+        out.write(scratch, 0, 2);
+        offset += 2;
+    }
+
+    private void writeInt(long value) throws IOException {
+        for (int i = 0; i < 4; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 4);
+        offset += 4;
+    }
+
+    private void writeLong(long value) throws IOException {
+        for (int i = 0; i < 8; i++) {
+            scratch[i] = (byte) (value >>> (8 * i));
+        }
+        out.write(scratch, 0, 8);
+        offset += 8;
+    }
+
+    /**
+     * Writes the already compressed bytes of an entry.
+     */
+    @FunctionalInterface
+    interface EntryData {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static class CentralRecord {
+        final byte[] name;
+        final int method;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final int dosTime;
+        final long externalAttributes;
+        final long offset;
+
+        CentralRecord(byte[] name, int method, long crc, long compressedSize, long size, int dosTime,
+                      long externalAttributes, long offset) {
+            this.name = name;
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.dosTime = dosTime;
+            this.externalAttributes = externalAttributes;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.ui;
+
+import org.example.api.Command;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the commands of a batch concurrently where that is safe. A command waits for every
+ * earlier command whose {@link Command#affectedPaths() paths} are equal to, inside or above one
+ * of its own, so the file order is kept wherever two commands could see each other's effects.
+ * A command that reports no paths waits for everything before it and blocks everything after.
+ * When a command fails, the commands that depend on it are skipped.
+ */
+class BatchRunner {
+    enum Status { OK, FAILED, SKIPPED, INVALID }
+
+    private final ExecutorService executor;
+
+    BatchRunner(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Runs all valid steps and waits for them to finish; the outcome is recorded on each step.
+     */
+    void run(List<Step> steps) {
+        Map<Path, List<Step>> byPath = new HashMap<>();
+        Map<Path, List<Step>> below = new HashMap<>();
+        List<Step> sinceBarrier = new ArrayList<>();
+        Step barrier = null;
+        List<CompletableFuture<Void>> all = new ArrayList<>();
+
+        for (Step step : steps) {
+            if (step.command == null) {
+                continue;
+            }
+            Set<Step> dependencies = new LinkedHashSet<>();
+            List<Path> paths = normalized(step.command.affectedPaths());
+            if (paths.isEmpty()) {
+                dependencies.addAll(sinceBarrier);
+                if (barrier != null) {
+                    dependencies.add(barrier);
+                }
+                barrier = step;
+                sinceBarrier.clear();
+            } else {
+                if (barrier != null) {
+                    dependencies.add(barrier);
+                }
+                for (Path path : paths) {
+                    // Earlier commands on this path or one of its ancestors, then on its descendants
+                    for (Path p = path; p != null; p = p.getParent()) {
+                        dependencies.addAll(byPath.getOrDefault(p, List.of()));
+                    }
+                    dependencies.addAll(below.getOrDefault(path, List.of()));
+                }
+                for (Path path : paths) {
+                    byPath.computeIfAbsent(path, k -> new ArrayList<>()).add(step);
+                    for (Path p = path.getParent(); p != null; p = p.getParent()) {
+                        below.computeIfAbsent(p, k -> new ArrayList<>()).add(step);
+                    }
+                }
+                sinceBarrier.add(step);
+            }
+            dependencies.remove(step);
+            step.dependencies = new ArrayList<>(dependencies);
+            step.future = CompletableFuture.allOf(step.dependencies.stream()
+                            .map(dependency -> dependency.future).toArray(CompletableFuture[]::new))
+                    .thenRunAsync(() -> execute(step), executor);
+            all.add(step.future);
+        }
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * Lets commands still running finish and releases the worker threads.
+     */
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prints one line per step followed by a summary.
+     */
+    static void report(List<Step> steps, long elapsedNanos, PrintStream out) {
+        Map<Status, Integer> counts = new HashMap<>();
+        out.printf("%5s  %-7s  %10s  %s%n", "Line", "Status", "Time (ms)", "Command");
+        for (Step step : steps) {
+            counts.merge(step.status, 1, Integer::sum);
+            out.printf("%5d  %-7s  %10.1f  %s%s%n", step.lineNumber, step.status, step.elapsedNanos / 1e6,
+                    step.text, step.message == null ? "" : " - " + step.message);
+        }
+        out.printf("Batch finished in %.1f ms: %d ok, %d failed, %d skipped, %d invalid%n",
+                elapsedNanos / 1e6, counts.getOrDefault(Status.OK, 0), counts.getOrDefault(Status.FAILED, 0),
+                counts.getOrDefault(Status.SKIPPED, 0), counts.getOrDefault(Status.INVALID, 0));
+    }
+
+    private static void execute(Step step) {
+        for (Step dependency : step.dependencies) {
+            if (dependency.status != Status.OK) {
+                step.status = Status.SKIPPED;
+                step.message = "depends on line " + dependency.lineNumber + ", which did not succeed";
+                return;
+            }
+        }
+        long start = System.nanoTime();
+        try {
+            if (step.command.execute()) {
+                step.status = Status.OK;
+            } else {
+                step.status = Status.FAILED;
+            }
+        } catch (Exception e) {
+            step.status = Status.FAILED;
+            step.message = e.getMessage();
+        } finally {
+            step.elapsedNanos = System.nanoTime() - start;
+        }
+    }
+
+    private static List<Path> normalized(List<Path> paths) {
+        List<Path> result = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            result.add(path.toAbsolutePath().normalize());
+        }
+        return result;
+    }
+
+    /**
+     * One line of a batch. Fields written by the executing thread are published to the waiting
+     * thread through the step's future.
+     */
+    static class Step {
+        final int lineNumber;
+        final String text;
+        final Command command;
+        Status status;
+        String message;
+        long elapsedNanos;
+        List<Step> dependencies = List.of();
+        CompletableFuture<Void> future;
+
+        private Step(int lineNumber, String text, Command command, Status status, String message) {
+            this.lineNumber = lineNumber;
+            this.text = text;
+            this.command = command;
+            this.status = status;
+            this.message = message;
+        }
+
+        static Step of(int lineNumber, String text, Command command) {
+            return new Step(lineNumber, text, command, null, null);
+        }
+
+        static Step invalid(int lineNumber, String text, String message) {
+            return new Step(lineNumber, text, null, Status.INVALID, message);
+        }
+    }
+}
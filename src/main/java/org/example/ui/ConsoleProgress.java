@@ -0,0 +1,31 @@
+package org.example.ui;
+
+import org.example.api.TransferProgress;
+
+import java.io.PrintStream;
+
+/**
+ * Prints transfer progress on a single console line, at most once per percent.
+ */
+public class ConsoleProgress implements TransferProgress {
+    private final PrintStream out;
+    private long lastPercent = -1;
+
+    public ConsoleProgress(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void onProgress(long bytesDone, long totalBytes) {
+        long percent = totalBytes == 0 ? 100 : bytesDone * 100 / totalBytes;
+        if (percent == lastPercent) {
+            return;
+        }
+        lastPercent = percent;
+        out.printf("\rCopied %d MB of %d MB (%d%%)", bytesDone >> 20, totalBytes >> 20, percent);
+        if (bytesDone >= totalBytes) {
+            out.println();
+        }
+        out.flush();
+    }
+}
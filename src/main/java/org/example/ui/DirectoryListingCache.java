@@ -0,0 +1,379 @@
+package org.example.ui;
+
+import org.example.api.DirectoryEntry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Sorted directory listings kept current by a {@link WatchService}. A directory is listed once;
+ * create and delete events are then applied to the cached listing in place. A listing is only
+ * read from disk again after an overflow or when its watch key becomes invalid. The most
+ * recently used directories stay cached, older ones are evicted and unwatched.
+ * <p>
+ * Every entry is a {@link DirectoryEntry} whose attributes were read once, when it was listed
+ * or when an event reported it; changing the sort order only re-sorts these in memory.
+ * <p>
+ * Listing happens in the background. Entries are read in runs that start small, so the first
+ * screenful is available almost at once, and double in size up to {@link #MAX_RUN}. Each run is
+ * sorted on its own and merged into the listing, so the total sorting cost stays O(n log n).
+ */
+class DirectoryListingCache implements Closeable {
+    private static final Logger logger = Logger.getLogger(DirectoryListingCache.class.getName());
+    private static final int FIRST_RUN = 256;
+    private static final int MAX_RUN = 64 * 1024;
+    private static final long FIRST_RUN_WAIT_MILLIS = 200;
+
+    private final Map<Path, Listing> listings;
+    private final Map<WatchKey, Listing> byKey = new HashMap<>();
+    private final WatchService watchService;
+    private final Thread watcher;
+    private final ExecutorService loader;
+    private Comparator<DirectoryEntry> order;
+
+    DirectoryListingCache(int capacity, Comparator<DirectoryEntry> order) throws IOException {
+        this.order = order;
+        this.listings = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Listing> eldest) {
+                if (size() > capacity) {
+                    discard(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watcher = new Thread(this::processEvents, "directory-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        this.loader = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "directory-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the sorted listing of dir as far as it has been read. The returned list is an
+     * immutable snapshot; the same instance is returned until the directory or the sort order
+     * changes. A directory that is not cached yet starts loading, and the call waits briefly for
+     * its first run of entries.
+     */
+    synchronized List<DirectoryEntry> get(Path dir) throws IOException {
+        Listing listing = listings.get(dir);
+        if (listing == null) {
+            listing = load(dir);
+            if (listing == null) {
+                // Not watchable (e.g. some network file systems), so it cannot be cached
+                return Collections.unmodifiableList(listSynchronously(dir));
+            }
+            long deadline = System.currentTimeMillis() + FIRST_RUN_WAIT_MILLIS;
+            while (!listing.complete && listing.sorted.isEmpty() && System.currentTimeMillis() < deadline) {
+                try {
+                    wait(Math.max(1, deadline - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (listing.failure != null) {
+                invalidate(dir);
+                throw listing.failure;
+            }
+        }
+        if (listing.snapshot == null) {
+            listing.snapshot = Collections.unmodifiableList(new ArrayList<>(listing.sorted));
+        }
+        return listing.snapshot;
+    }
+
+    /**
+     * @return false while dir is still being read in the background
+     */
+    synchronized boolean isComplete(Path dir) {
+        Listing listing = listings.get(dir);
+        return listing == null || listing.complete;
+    }
+
+    /**
+     * @return the order listings are currently sorted in
+     */
+    synchronized Comparator<DirectoryEntry> getOrder() {
+        return order;
+    }
+
+    /**
+     * Re-sorts all cached listings in memory.
+     */
+    synchronized void setOrder(Comparator<DirectoryEntry> newOrder) {
+        order = newOrder;
+        for (Listing listing : listings.values()) {
+            listing.sorted.sort(order);
+            listing.snapshot = null;
+        }
+    }
+
+    /**
+     * Drops the cached listing so the next {@link #get} reads the directory again.
+     */
+    synchronized void invalidate(Path dir) {
+        Listing listing = listings.remove(dir);
+        if (listing != null) {
+            discard(listing);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        loader.shutdownNow();
+        watchService.close();
+        watcher.interrupt();
+    }
+
+    private void discard(Listing listing) {
+        listing.cancelled = true;
+        listing.key.cancel();
+        byKey.remove(listing.key);
+    }
+
+    private Listing load(Path dir) {
+        WatchKey key;
+        try {
+            key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.fine("Cannot watch " + dir + ": " + e.getMessage());
+            return null;
+        }
+        // Register first so that no change slips in between listing and watching
+        Listing listing = new Listing(dir, key);
+        listings.put(dir, listing);
+        byKey.put(key, listing);
+        loader.execute(() -> enumerate(listing));
+        return listing;
+    }
+
+    private void enumerate(Listing listing) {
+        int runSize = FIRST_RUN;
+        List<DirectoryEntry> run = new ArrayList<>(runSize);
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(listing.dir)) {
+            for (Path path : entries) {
+                if (listing.cancelled) {
+                    return;
+                }
+                DirectoryEntry entry = readEntry(path);
+                if (entry != null) {
+                    run.add(entry);
+                }
+                if (run.size() == runSize) {
+                    merge(listing, run);
+                    runSize = Math.min(MAX_RUN, runSize * 2);
+                    run = new ArrayList<>(runSize);
+                }
+            }
+            merge(listing, run);
+        } catch (IOException e) {
+            synchronized (this) {
+                listing.failure = e;
+            }
+        } catch (RuntimeException e) {
+            // DirectoryStream iteration wraps I/O errors
+            synchronized (this) {
+                listing.failure = new IOException(e);
+            }
+        } finally {
+            synchronized (this) {
+                listing.complete = true;
+                listing.changedWhileLoading.clear();
+                listing.snapshot = null;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Sorts one run outside the lock, then merges it into the listing.
+     */
+    private void merge(Listing listing, List<DirectoryEntry> run) {
+        Comparator<DirectoryEntry> runOrder = getOrder();
+        run.sort(runOrder);
+        synchronized (this) {
+            if (listing.cancelled) {
+                return;
+            }
+            if (runOrder != order) {
+                // Sort mode changed meanwhile
+                run.sort(order);
+            }
+            List<DirectoryEntry> merged = new ArrayList<>(listing.sorted.size() + run.size());
+            int i = 0;
+            int j = 0;
+            while (i < listing.sorted.size() || j < run.size()) {
+                DirectoryEntry next;
+                if (j == run.size() || (i < listing.sorted.size()
+                        && order.compare(listing.sorted.get(i), run.get(j)) <= 0)) {
+                    next = listing.sorted.get(i++);
+                } else {
+                    next = run.get(j++);
+                    // A watch event may already have delivered a newer version of this entry
+                    if (listing.changedWhileLoading.contains(next.getPath())
+                            || listing.byPath.putIfAbsent(next.getPath(), next) != null) {
+                        continue;
+                    }
+                }
+                merged.add(next);
+            }
+            listing.sorted = merged;
+            listing.snapshot = null;
+            notifyAll();
+        }
+    }
+
+    private List<DirectoryEntry> listSynchronously(Path dir) throws IOException {
+        List<DirectoryEntry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                DirectoryEntry entry = readEntry(path);
+                if (entry != null) {
+                    entries.add(entry);
+                }
+            }
+        }
+        entries.sort(order);
+        return entries;
+    }
+
+    private static DirectoryEntry readEntry(Path path) {
+        try {
+            return DirectoryEntry.read(path);
+        } catch (IOException e) {
+            // Removed between listing and reading, or unreadable; the next event tells us more
+            return null;
+        }
+    }
+
+    private void processEvents() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Listing listing;
+            synchronized (this) {
+                listing = byKey.get(key);
+            }
+            List<WatchEvent<?>> events = key.pollEvents();
+            // Read attributes outside the lock, like merge() sorts, so a slow file system does
+            // not hold up the key loop; only splicing the entries in needs the lock
+            Map<Path, DirectoryEntry> changes = listing != null ? readChanges(listing.dir, events) : null;
+            synchronized (this) {
+                if (listing == null || byKey.get(key) != listing) {
+                    key.reset();
+                    continue;
+                }
+                if (changes == null) {
+                    invalidate(listing.dir);
+                } else {
+                    apply(listing, changes);
+                    if (!key.reset()) {
+                        // Directory is gone or no longer accessible
+                        invalidate(listing.dir);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the current entry of every path the events name, null for one that is gone; or
+     * null if events were lost and the directory has to be listed again
+     */
+    static Map<Path, DirectoryEntry> readChanges(Path dir, List<WatchEvent<?>> events) {
+        Map<Path, DirectoryEntry> changes = new LinkedHashMap<>();
+        for (WatchEvent<?> event : events) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                return null;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (!changes.containsKey(path)) {
+                // Whatever the kind, the path's state now is what counts: a delete may be
+                // followed by a create of the same name in this batch, and readEntry returns
+                // null for a file that is gone. Changes after this read arrive with the next key
+                changes.put(path, readEntry(path));
+            }
+        }
+        return changes;
+    }
+
+    private void apply(Listing listing, Map<Path, DirectoryEntry> changes) {
+        for (Map.Entry<Path, DirectoryEntry> change : changes.entrySet()) {
+            Path path = change.getKey();
+            // Drop the old entry, insert the new one
+            remove(listing, path);
+            if (!listing.complete) {
+                // Keep a stale copy still in the loader's hands from being merged later
+                listing.changedWhileLoading.add(path);
+            }
+            DirectoryEntry entry = change.getValue();
+            if (entry != null) {
+                int index = Collections.binarySearch(listing.sorted, entry, order);
+                listing.sorted.add(index < 0 ? -index - 1 : index, entry);
+                listing.byPath.put(path, entry);
+            }
+        }
+        listing.snapshot = null;
+    }
+
+    private void remove(Listing listing, Path path) {
+        DirectoryEntry old = listing.byPath.remove(path);
+        if (old != null) {
+            int index = Collections.binarySearch(listing.sorted, old, order);
+            if (index >= 0) {
+                listing.sorted.remove(index);
+            }
+        }
+    }
+
+    private static class Listing {
+        final Path dir;
+        final WatchKey key;
+        List<DirectoryEntry> sorted = new ArrayList<>();
+        // The entry currently in sorted for each path, needed to find it again by its sort key
+        final Map<Path, DirectoryEntry> byPath = new HashMap<>();
+        // Paths that watch events reported while the loader was still running
+        final Set<Path> changedWhileLoading = new HashSet<>();
+        List<DirectoryEntry> snapshot;
+        boolean complete;
+        volatile boolean cancelled;
+        IOException failure;
+
+        Listing(Path dir, WatchKey key) {
+            this.dir = dir;
+            this.key = key;
+        }
+    }
+}
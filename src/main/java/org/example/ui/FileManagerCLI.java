@@ -1,50 +1,439 @@
 package org.example.ui;
 
 import org.example.api.Command;
+import org.example.api.CompressionProfile;
+import org.example.api.DigestAlgorithm;
+import org.example.api.DuplicateGroup;
+import org.example.api.OperationRecord;
+import org.example.api.OperationResult;
+import org.example.api.PathFingerprint;
+import org.example.api.TransferProgress;
 import org.example.commands.*;
+import org.example.config.AppConfig;
 import org.example.exceptions.FileOperationException;
+import org.example.metrics.InstrumentedFileOperation;
+import org.example.operations.ContentSearch;
 import org.example.operations.DefaultFileOperation;
+import org.example.operations.FileSearch;
+import org.example.operations.PathIndex;
+import org.example.operations.OperationJournal;
+import org.example.operations.WorkerPool;
+import org.example.utils.GlobExpander;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.nio.file.*;
 import java.util.*;
-import java.util.Stack;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.PatternSyntaxException;
 
 public class FileManagerCLI {
-    private final DefaultFileOperation fileOperation;
+    private static final Set<String> COMMANDS = Set.of("move", "copy", "rename", "delete", "compress", "dupes", "find", "grep", "index", "locate", "sync", "stats", "navigate");
+
+    private final DefaultFileOperation core;
+    // Every command goes through the metrics layer; core is only for its own maintenance
+    private final InstrumentedFileOperation fileOperation;
     private final Path currentDirectory;
-    private final Map<String, CommandFactory> commandMap;
-    private final Stack<Command> commandHistory;
+    private final OperationJournal journal;
     private final Map<String, String> commandHelp;
+    private final PrintStream out;
+    private final InputStream in;
+    // Console progress would interleave when commands run concurrently
+    private boolean batchMode;
+    // Set by whatever reports a failure of the command being executed
+    private boolean failed;
 
     public FileManagerCLI() {
-        this.fileOperation = new DefaultFileOperation();
-        this.currentDirectory = Paths.get(System.getProperty("user.dir"));
-        this.commandMap = new HashMap<>();
-        this.commandHistory = new Stack<>();
+        this(new DefaultFileOperation(), OperationJournal.openDefault(), Paths.get(System.getProperty("user.dir")),
+                System.out, System.in);
+    }
+
+    private FileManagerCLI(DefaultFileOperation core, OperationJournal journal, Path currentDirectory,
+                           PrintStream out, InputStream in) {
+        this(core, new InstrumentedFileOperation(core), journal, currentDirectory, out, in);
+    }
+
+    /**
+     * CLI for one request of a long-running process that shares the file operation and the
+     * undo journal between requests.
+     */
+    FileManagerCLI(DefaultFileOperation core, InstrumentedFileOperation fileOperation, OperationJournal journal,
+                   Path currentDirectory, PrintStream out, InputStream in) {
+        this.core = core;
+        this.fileOperation = fileOperation;
+        this.currentDirectory = currentDirectory;
+        this.journal = journal;
         this.commandHelp = new HashMap<>();
-        initializeCommands();
+        this.out = out;
+        this.in = in;
         initializeHelp();
     }
 
     private void initializeHelp() {
-        commandHelp.put("move", "move <source> <target> - Move a file/directory to target location");
-        commandHelp.put("copy", "copy <source> <target> - Copy a file/directory to target location");
+        commandHelp.put("move", "move <source>... <target> - Move files/directories; several sources or a glob need a target directory");
+        commandHelp.put("copy", "copy <source>... <target> [--checksum[=crc32c|sha256]] [--verify] - Copy files/directories; several sources or a glob need a target directory; --checksum prints a digest per file, --verify reads the copy back and checks it");
         commandHelp.put("rename", "rename <file> <newName> - Rename a file/directory");
-        commandHelp.put("delete", "delete <file> - Delete a file/directory");
-        commandHelp.put("compress", "compress <source> - Compress file into zip archive");
+        commandHelp.put("delete", "delete <file>... - Delete files/directories, globs like '*.tmp' allowed");
+        commandHelp.put("compress", "compress <source>... [fast|balanced|max] [--checksum[=crc32c|sha256]] [--verify] - Compress each source into its own zip archive; --verify reads the archive back and checks every entry");
+        commandHelp.put("dupes", "dupes [directory] - List files with identical content below a directory");
+        commandHelp.put("find", "find <pattern> [directory] [--regex|--glob|--substring] [--ignore <glob>]... - Search file names below a directory");
+        commandHelp.put("grep", "grep <text> [directory] [-i] [--ignore <glob>]... - Print lines containing text in files below a directory");
+        commandHelp.put("index", "index [directory]... - Add directories to the file name index and refresh it");
+        commandHelp.put("locate", "locate <pattern> [--regex|--glob|--substring] - Look up names in the file name index");
+        commandHelp.put("sync", "sync <source> <target> [--delete] [--inplace] - Copy only new and changed files into target; --delete removes files missing from source, --inplace rewrites only changed blocks of large files");
+        commandHelp.put("stats", "stats [--reset] - Print call counts, bytes, errors and latency percentiles of the file operations as JSON");
         commandHelp.put("navigate", "navigate - Open interactive file navigator");
-        commandHelp.put("undo", "undo - Undo last operation if possible");
+        commandHelp.put("undo", "undo [--force] - Undo last operation if possible; --force also undoes it when its target has changed since");
+        commandHelp.put("recover", "recover - Finish cross-device moves that failed earlier; the partial target is kept");
+        commandHelp.put("batch", "batch <file|-> - Run one command per line from a file or stdin in a single process");
+    }
+
+    /**
+     * Builds the command on demand. A switch rather than a map of factory lambdas keeps a
+     * one-shot invocation from bootstrapping a lambda per command, and the navigator with its
+     * terminal classes is only loaded when it is actually started.
+     */
+    private Command createCommand(String name, String[] args) {
+        return switch (name) {
+            case "move", "copy" -> createTransfer(name, args);
+            case "rename" -> new RenameCommand(fileOperation, resolvePath(args[1]), args[2]);
+            case "delete" -> createDelete(args);
+            case "compress" -> createCompress(args);
+            case "find" -> createFind(args);
+            case "grep" -> createGrep(args);
+            case "index" -> createIndex(args);
+            case "locate" -> createLocate(args);
+            case "sync" -> createSync(args);
+            case "stats" -> new StatsCommand(fileOperation.getMetrics(), args.length > 1 && "--reset".equals(args[1]));
+            case "dupes" -> new DupesCommand(fileOperation, args.length > 1 ? resolvePath(args[1]) : currentDirectory);
+            case "navigate" -> new FileNavigator();
+            default -> throw new IllegalArgumentException("Unknown command: " + name);
+        };
+    }
+
+    /**
+     * A single source is copied or moved to target as before. Several sources, or a glob, go
+     * into target as a directory; its names are listed once up front so that clashes are
+     * reported per file instead of being discovered one stat at a time.
+     */
+    private Command createTransfer(String name, String[] args) {
+        boolean copy = "copy".equals(name);
+        DigestOptions digests = new DigestOptions(args);
+        if (digests.isRequested()) {
+            if (!copy) {
+                throw new IllegalArgumentException("--checksum and --verify only apply to copy");
+            }
+            args = digests.getRemaining();
+            if (args.length < 3) {
+                throw new IllegalArgumentException("Insufficient arguments");
+            }
+        }
+        List<String> sources = Arrays.asList(args).subList(1, args.length - 1);
+        Path target = resolvePath(args[args.length - 1]);
+        if (sources.size() == 1 && !GlobExpander.isPattern(sources.get(0))) {
+            Path source = resolvePath(sources.get(0));
+            return copy ? new CopyCommand(fileOperation, source, target, progress(), digests.algorithm, digests.verify)
+                    : new MoveCommand(fileOperation, source, target);
+        }
+        List<Path> scope = scope(sources);
+        scope.add(target);
+        return new BulkCommand((operations, rejected) -> planTransfer(copy, sources, target, digests, operations, rejected),
+                scope, WorkerPool.shared());
+    }
+
+    private void planTransfer(boolean copy, List<String> sources, Path target, DigestOptions digests,
+                              List<Command> operations, List<BulkCommand.Failure> rejected) {
+        if (!Files.isDirectory(target)) {
+            throw new IllegalArgumentException("Target must be an existing directory for several sources: " + target);
+        }
+        List<Path> paths = expand(sources, rejected);
+        if (!copy) {
+            paths = withoutNested(paths);
+        }
+        Set<String> existing = new HashSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(target)) {
+            for (Path entry : entries) {
+                existing.add(entry.getFileName().toString());
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot list target directory " + target + ": " + e.getMessage());
+        }
+
+        Set<String> claimed = new HashSet<>();
+        for (Path source : paths) {
+            String fileName = source.getFileName().toString();
+            Path destination = target.resolve(fileName);
+            if (target.startsWith(source)) {
+                rejected.add(new BulkCommand.Failure(source, "target is inside the source"));
+            } else if (existing.contains(fileName)) {
+                rejected.add(new BulkCommand.Failure(source, "target already exists: " + destination));
+            } else if (!claimed.add(fileName)) {
+                rejected.add(new BulkCommand.Failure(source, "another source has the same name"));
+            } else {
+                operations.add(copy ? new CopyCommand(fileOperation, source, destination, TransferProgress.NONE,
+                        digests.algorithm, digests.verify)
+                        : new MoveCommand(fileOperation, source, destination));
+            }
+        }
+    }
+
+    private Command createDelete(String[] args) {
+        List<String> sources = Arrays.asList(args).subList(1, args.length);
+        if (sources.size() == 1 && !GlobExpander.isPattern(sources.get(0))) {
+            return new DeleteCommand(fileOperation, resolvePath(sources.get(0)));
+        }
+        return new BulkCommand((operations, rejected) -> {
+            for (Path path : withoutNested(expand(sources, rejected))) {
+                operations.add(new DeleteCommand(fileOperation, path));
+            }
+        }, scope(sources), WorkerPool.shared());
+    }
+
+    /**
+     * The last argument is a profile if it names one, otherwise another source.
+     */
+    private Command createCompress(String[] args) {
+        DigestOptions digests = new DigestOptions(args);
+        args = digests.getRemaining();
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Insufficient arguments");
+        }
+        CompressionProfile profile = CompressionProfile.BALANCED;
+        int end = args.length;
+        if (end > 2 && CompressionProfile.isProfile(args[end - 1])) {
+            profile = CompressionProfile.fromName(args[--end]);
+        }
+        List<String> sources = Arrays.asList(args).subList(1, end);
+        if (sources.size() == 1 && !GlobExpander.isPattern(sources.get(0))) {
+            return new CompressCommand(fileOperation, resolvePath(sources.get(0)), profile,
+                    digests.algorithm, digests.verify);
+        }
+        CompressionProfile chosen = profile;
+        List<Path> scope = scope(sources);
+        for (String source : sources) {
+            if (!GlobExpander.isPattern(source)) {
+                // The archive is written next to the source
+                Path path = resolvePath(source);
+                scope.add(path.resolveSibling(path.getFileName() + ".zip"));
+            }
+        }
+        return new BulkCommand((operations, rejected) -> {
+            for (Path path : expand(sources, rejected)) {
+                operations.add(new CompressCommand(fileOperation, path, chosen, digests.algorithm, digests.verify));
+            }
+        }, scope, WorkerPool.shared());
+    }
+
+    /**
+     * A pattern with glob characters is matched as a glob and anything else as a substring,
+     * unless a mode option says otherwise. Matches are printed as they are found.
+     */
+    private Command createFind(String[] args) {
+        String pattern = null;
+        Path root = currentDirectory;
+        FileSearch.Mode mode = null;
+        List<String> ignored = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--regex" -> mode = FileSearch.Mode.REGEX;
+                case "--glob" -> mode = FileSearch.Mode.GLOB;
+                case "--substring" -> mode = FileSearch.Mode.SUBSTRING;
+                case "--ignore" -> {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("--ignore needs a pattern");
+                    }
+                    ignored.add(args[i]);
+                }
+                default -> {
+                    if (pattern == null) {
+                        pattern = args[i];
+                    } else {
+                        root = resolvePath(args[i]);
+                    }
+                }
+            }
+        }
+        if (pattern == null) {
+            throw new IllegalArgumentException("Missing search pattern");
+        }
+        if (mode == null) {
+            mode = GlobExpander.isPattern(pattern) ? FileSearch.Mode.GLOB : FileSearch.Mode.SUBSTRING;
+        }
+        FileSearch search;
+        try {
+            search = new FileSearch(WorkerPool.shared(), pattern, mode, ignored);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid regular expression: " + e.getDescription());
+        }
+        return new FindCommand(search, root, entry -> out.println(displayPath(entry.getPath())));
+    }
+
+    /**
+     * Prints each matching line as path:line:text while the search runs; binary files are
+     * skipped.
+     */
+    private Command createGrep(String[] args) {
+        String text = null;
+        Path root = currentDirectory;
+        boolean ignoreCase = false;
+        List<String> ignored = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-i", "--ignore-case" -> ignoreCase = true;
+                case "--ignore" -> {
+                    if (++i == args.length) {
+                        throw new IllegalArgumentException("--ignore needs a pattern");
+                    }
+                    ignored.add(args[i]);
+                }
+                default -> {
+                    if (text == null) {
+                        text = args[i];
+                    } else {
+                        root = resolvePath(args[i]);
+                    }
+                }
+            }
+        }
+        if (text == null || text.isEmpty()) {
+            throw new IllegalArgumentException("Missing search text");
+        }
+        ContentSearch search = new ContentSearch(WorkerPool.shared(), text, ignoreCase, ignored);
+        return new GrepCommand(search, root, match -> out.println(
+                displayPath(match.getPath()) + ":" + match.getLineNumber() + ":" + match.getLine()));
+    }
+
+    private Command createSync(String[] args) {
+        List<String> paths = new ArrayList<>();
+        boolean deleteExtra = false;
+        boolean inPlace = false;
+        for (int i = 1; i < args.length; i++) {
+            if ("--delete".equals(args[i])) {
+                deleteExtra = true;
+            } else if ("--inplace".equals(args[i])) {
+                inPlace = true;
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (paths.size() != 2) {
+            throw new IllegalArgumentException("Expected a source and a target");
+        }
+        return new SyncCommand(fileOperation, resolvePath(paths.get(0)), resolvePath(paths.get(1)), deleteExtra, inPlace);
+    }
+
+    private Command createIndex(String[] args) {
+        List<Path> roots = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            roots.add(resolvePath(args[i]));
+        }
+        return new IndexCommand(PathIndex.openDefault(), roots);
+    }
+
+    /**
+     * Matches names like find; a pattern containing a separator is matched against the
+     * whole path instead.
+     */
+    private Command createLocate(String[] args) {
+        String pattern = null;
+        FileSearch.Mode mode = null;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--regex" -> mode = FileSearch.Mode.REGEX;
+                case "--glob" -> mode = FileSearch.Mode.GLOB;
+                case "--substring" -> mode = FileSearch.Mode.SUBSTRING;
+                default -> pattern = args[i];
+            }
+        }
+        if (pattern == null) {
+            throw new IllegalArgumentException("Missing search pattern");
+        }
+        if (mode == null) {
+            mode = GlobExpander.isPattern(pattern) ? FileSearch.Mode.GLOB : FileSearch.Mode.SUBSTRING;
+        }
+        try {
+            return new LocateCommand(PathIndex.openDefault(), FileSearch.nameMatcher(pattern, mode),
+                    pattern.indexOf('/') >= 0, path -> out.println(path));
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid pattern: " + e.getDescription());
+        }
     }
 
-    private void initializeCommands() {
-        commandMap.put("move", (args) -> new MoveCommand(fileOperation, resolvePath(args[1]), resolvePath(args[2])));
-        commandMap.put("copy", (args) -> new CopyCommand(fileOperation, resolvePath(args[1]), resolvePath(args[2])));
-        commandMap.put("rename", (args) -> new RenameCommand(fileOperation, resolvePath(args[1]), args[2]));
-        commandMap.put("delete", (args) -> new DeleteCommand(fileOperation, resolvePath(args[1])));
-        commandMap.put("compress", (args) -> new CompressCommand(fileOperation, resolvePath(args[1])));
-        commandMap.put("navigate", (args) -> new FileNavigator());
+    private String displayPath(Path path) {
+        return path.startsWith(currentDirectory) && !path.equals(currentDirectory)
+                ? currentDirectory.relativize(path).toString() : path.toString();
+    }
+
+    /**
+     * @return paths that contain every match of the arguments, for ordering a bulk command
+     * against others before its patterns are expanded
+     */
+    private List<Path> scope(List<String> arguments) {
+        List<Path> scope = new ArrayList<>();
+        for (String argument : arguments) {
+            scope.add(GlobExpander.scope(currentDirectory, argument));
+        }
+        return scope;
+    }
+
+    /**
+     * Expands glob patterns among the arguments; patterns without a match end up in rejected.
+     */
+    private List<Path> expand(List<String> arguments, List<BulkCommand.Failure> rejected) {
+        GlobExpander.Expansion expansion;
+        try {
+            expansion = GlobExpander.expand(currentDirectory, arguments);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot expand " + arguments + ": " + e.getMessage());
+        }
+        for (String pattern : expansion.getUnmatched()) {
+            rejected.add(new BulkCommand.Failure(resolvePath(pattern), "no match"));
+        }
+        return expansion.getPaths();
+    }
+
+    /**
+     * Drops paths that lie inside another of the paths; moving or deleting the outer one
+     * already takes care of them.
+     */
+    private static List<Path> withoutNested(List<Path> paths) {
+        Set<Path> all = new HashSet<>(paths);
+        List<Path> outermost = new ArrayList<>();
+        for (Path path : paths) {
+            Path parent = path.getParent();
+            while (parent != null && !all.contains(parent)) {
+                parent = parent.getParent();
+            }
+            if (parent == null) {
+                outermost.add(path);
+            }
+        }
+        return outermost;
     }
 
     public void run(String[] args) {
+        if (args.length == 0 || !"recover".equalsIgnoreCase(args[0])) {
+            // recover does the same and more, without the warnings about failed moves
+            core.recoverInterruptedMoves();
+        }
+        execute(args);
+    }
+
+    /**
+     * Runs one command line without the start-up recovery of {@link #run}.
+     * @return false if the command, or any part of it, failed
+     */
+    boolean execute(String[] args) {
+        failed = false;
+        dispatch(args);
+        return !failed;
+    }
+
+    private void dispatch(String[] args) {
         if (args.length == 0) {
             displayHelp();
             return;
@@ -57,57 +446,312 @@ public class FileManagerCLI {
         }
 
         if ("undo".equals(command)) {
-            handleUndo();
+            handleUndo(args.length > 1 && "--force".equals(args[1]));
             return;
         }
 
-        CommandFactory commandFactory = commandMap.get(command);
-        if (commandFactory == null) {
-            System.out.println("Invalid command. Use 'help' to see available commands.");
+        if ("recover".equals(command)) {
+            try {
+                out.println("Recovered " + core.recoverFailedMoves() + " unfinished moves.");
+            } catch (FileOperationException e) {
+                out.println("Operation failed: " + e.getMessage());
+                failed = true;
+            }
+            return;
+        }
+
+        if ("batch".equals(command)) {
+            if (args.length < 2) {
+                out.println("Usage: " + commandHelp.get(command));
+                failed = true;
+                return;
+            }
+            runBatch(args[1]);
+            return;
+        }
+
+        if (!COMMANDS.contains(command)) {
+            out.println("Invalid command. Use 'help' to see available commands.");
+            failed = true;
             return;
         }
 
         try {
             validateArguments(command, args);
-            Command cmd = commandFactory.createCommand(args);
-            if (cmd.execute()) {
-                if (cmd.isUndoable()) {
-                    commandHistory.push(cmd);
-                }
-                System.out.println("Operation completed successfully.");
+            Command cmd = createCommand(command, args);
+            if (cmd instanceof BulkCommand bulk) {
+                bulk.execute();
+                // Whatever did succeed stays undoable, as one group
+                record(List.of(bulk));
+                reportBulk(bulk);
+            } else if (cmd instanceof FindCommand || cmd instanceof GrepCommand
+                    || cmd instanceof LocateCommand) {
+                // The matches were the output
+                cmd.execute();
+            } else if (cmd instanceof IndexCommand indexCommand) {
+                long start = System.nanoTime();
+                indexCommand.execute();
+                reportIndex(indexCommand.getIndex(), System.nanoTime() - start);
+            } else if (cmd instanceof SyncCommand sync) {
+                sync.execute();
+                out.println("Synced: " + sync.getResult());
+            } else if (cmd instanceof DeleteCommand delete) {
+                delete.execute();
+                out.println("Deleted: " + delete.getResult());
+            } else if (cmd instanceof StatsCommand stats) {
+                stats.execute();
+                out.println(stats.getJson());
+            } else if (cmd instanceof DupesCommand dupes) {
+                dupes.execute();
+                reportDuplicates(dupes.getGroups());
+            } else if (cmd.execute()) {
+                record(List.of(cmd));
+                reportDigests(cmd);
+                out.println("Operation completed successfully.");
+            } else {
+                failed = true;
             }
         } catch (FileOperationException e) {
-            System.out.println("Operation failed: " + e.getMessage());
+            out.println("Operation failed: " + e.getMessage());
+            failed = true;
         } catch (IllegalArgumentException e) {
-            System.out.println("Invalid arguments: " + e.getMessage());
-            System.out.println("Usage: " + commandHelp.get(command));
+            out.println("Invalid arguments: " + e.getMessage());
+            out.println("Usage: " + commandHelp.get(command));
+            failed = true;
         } catch (Exception e) {  // Add generic exception handler
-            System.out.println("Unexpected error: " + e.getMessage());
+            out.println("Unexpected error: " + e.getMessage());
+            failed = true;
+        }
+    }
+
+    /**
+     * Prints the digests of a copy or compression like sha256sum does, so that the output can
+     * be checked again later.
+     */
+    private void reportDigests(Command cmd) {
+        OperationResult result = cmd instanceof CopyCommand copy ? copy.getResult()
+                : cmd instanceof CompressCommand compress ? compress.getResult() : null;
+        if (result == null || result.getAlgorithm() == null) {
+            return;
+        }
+        new TreeMap<>(result.getDigests()).forEach((path, digest) -> out.println(digest + "  " + displayPath(path)));
+        if (result.isVerified()) {
+            out.println("Verified " + result.getDigests().size() + " files (" + result.getAlgorithm().getLabel() + ").");
+        }
+    }
+
+    private void reportBulk(BulkCommand bulk) {
+        out.println("Completed " + bulk.getCompleted() + " of " + bulk.getTotal() + " operations.");
+        List<BulkCommand.Failure> failures = bulk.getFailures();
+        if (!failures.isEmpty()) {
+            failed = true;
+            out.println("Failed (" + failures.size() + "):");
+            for (BulkCommand.Failure failure : failures) {
+                out.println("  " + failure);
+            }
+        }
+    }
+
+    private void reportIndex(PathIndex index, long elapsedNanos) throws IOException {
+        out.printf("Indexed %d entries in %d directories below %s in %.0f ms%n", index.getEntryCount(),
+                index.getDirectoryCount(), index.getRoots(), elapsedNanos / 1e6);
+        out.printf("Listed %d directories, %d unchanged since the last run; index size %d KB%n",
+                index.getListedDirectories(), index.getReusedDirectories(), index.getSizeInBytes() / 1024);
+    }
+
+    private void reportDuplicates(List<DuplicateGroup> groups) {
+        long files = 0;
+        long wasted = 0;
+        for (DuplicateGroup group : groups) {
+            out.println(group.getPaths().size() + " x " + group.getSize() + " bytes (sha256 "
+                    + group.getDigest().substring(0, 16) + ")");
+            for (Path path : group.getPaths()) {
+                out.println("  " + path);
+            }
+            files += group.getPaths().size();
+            wasted += group.getWastedBytes();
+        }
+        out.println("Found " + groups.size() + " groups of duplicates, " + files + " files, "
+                + wasted + " bytes reclaimable.");
+    }
+
+    /**
+     * Appends what the commands did to the undo journal, with one fsync for all of them.
+     */
+    private void record(List<Command> commands) {
+        try {
+            for (Command command : commands) {
+                List<OperationRecord> records = new ArrayList<>();
+                for (OperationRecord record : command.getRecords()) {
+                    records.add(record.withTargetFingerprint(fingerprint(record.getTarget())));
+                }
+                journal.append(records);
+            }
+            journal.sync();
+        } catch (IOException e) {
+            out.println("Warning: could not record the operation for undo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reverts the newest operation in the undo journal, which may come from an earlier run.
+     * @param force also revert records whose target no longer looks as the operation left it
+     */
+    private void handleUndo(boolean force) {
+        try {
+            List<OperationRecord> undone = journal.undoLast(record -> revert(record, force));
+            journal.sync();
+            if (undone.isEmpty()) {
+                out.println("No operations to undo.");
+            } else {
+                out.println(undone.size() == 1 ? "Undone: " + undone.get(0) : "Undone: " + undone.size() + " operations");
+                out.println("Operation undone successfully.");
+            }
+        } catch (IOException | FileOperationException e) {
+            out.println("Failed to undo last operation: " + e.getMessage());
+            failed = true;
+        }
+    }
+
+    private void revert(OperationRecord record, boolean force) {
+        if (!force) {
+            PathFingerprint recorded = record.getTargetFingerprint();
+            PathFingerprint current = fingerprint(record.getTarget());
+            if (recorded == null || !recorded.equals(current)) {
+                // The history outlives the process; whatever is at the target now may not be ours
+                throw new FileOperationException("Not undoing " + record + ": " + displayPath(record.getTarget())
+                        + (current == null ? " is gone" : " has changed since")
+                        + ". Run 'undo --force' to undo it anyway.");
+            }
+        }
+        switch (record.getType()) {
+            case COPY -> fileOperation.deleteFile(record.getTarget());
+            case MOVE -> fileOperation.moveFile(record.getTarget(), record.getSource());
+            case RENAME -> fileOperation.renameFile(record.getTarget(), record.getSource().getFileName().toString());
         }
     }
 
-    private void handleUndo() {
-        if (commandHistory.isEmpty()) {
-            System.out.println("No operations to undo.");
+    /**
+     * @return the state of path, with the totals of its tree if it is a directory; null if it
+     * cannot be read
+     */
+    private PathFingerprint fingerprint(Path path) {
+        try {
+            return PathFingerprint.of(core.getFileInfo(path));
+        } catch (FileOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs every line of the batch through the regular command factories in this process.
+     * Blank lines and lines starting with '#' are ignored.
+     */
+    private void runBatch(String source) {
+        List<String> lines;
+        try {
+            lines = "-".equals(source)
+                    ? new BufferedReader(new InputStreamReader(in)).lines().toList()
+                    : Files.readAllLines(resolvePath(source));
+        } catch (IOException e) {
+            out.println("Cannot read batch " + source + ": " + e.getMessage());
+            failed = true;
             return;
         }
 
-        Command lastCommand = commandHistory.peek();
-        if (lastCommand.undo()) {
-            commandHistory.pop();
-            System.out.println("Operation undone successfully.");
-        } else {
-            System.out.println("Failed to undo last operation.");
+        batchMode = true;
+        List<BatchRunner.Step> steps = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String text = lines.get(i).trim();
+            if (text.isEmpty() || text.startsWith("#")) {
+                continue;
+            }
+            steps.add(parseStep(i + 1, text));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(AppConfig.batchParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "batch-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        BatchRunner runner = new BatchRunner(executor);
+        long start = System.nanoTime();
+        try {
+            runner.run(steps);
+            runner.shutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        BatchRunner.report(steps, System.nanoTime() - start, out);
+
+        List<Command> ran = new ArrayList<>();
+        for (BatchRunner.Step step : steps) {
+            if (step.status != BatchRunner.Status.OK) {
+                failed = true;
+            }
+            // A failed bulk step can still have done part of its work
+            if (step.command != null) {
+                ran.add(step.command);
+            }
+        }
+        record(ran);
+    }
+
+    private BatchRunner.Step parseStep(int lineNumber, String text) {
+        String[] args = splitArguments(text);
+        String command = args[0].toLowerCase();
+        if (!COMMANDS.contains(command) || "navigate".equals(command)) {
+            return BatchRunner.Step.invalid(lineNumber, text, "not a batch command: " + command);
+        }
+        try {
+            validateArguments(command, args);
+            return BatchRunner.Step.of(lineNumber, text, createCommand(command, args));
+        } catch (IllegalArgumentException e) {
+            return BatchRunner.Step.invalid(lineNumber, text, e.getMessage() + ", usage: " + commandHelp.get(command));
+        }
+    }
+
+    /**
+     * Splits a batch line on whitespace; double quotes keep paths with spaces together.
+     */
+    private static String[] splitArguments(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        boolean inArgument = false;
+        for (char c : line.toCharArray()) {
+            if (c == '"') {
+                quoted = !quoted;
+                inArgument = true;
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inArgument) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArgument = false;
+                }
+            } else {
+                current.append(c);
+                inArgument = true;
+            }
+        }
+        if (inArgument) {
+            args.add(current.toString());
         }
+        return args.toArray(new String[0]);
+    }
+
+    private TransferProgress progress() {
+        return batchMode ? TransferProgress.NONE : new ConsoleProgress(out);
     }
 
     private void  validateArguments(String command, String[] args) {
         int requiredArgs = switch (command) {
-            case "move", "copy" -> 3;
+            case "move", "copy", "sync" -> 3;
             case "rename" -> 3;
             case "delete" -> 2;
             case "compress" -> 2;
-            case "navigate" -> 1;
+            case "find", "grep", "locate" -> 2;
+            case "dupes", "index", "stats", "navigate" -> 1;
             default -> 0;
         };
 
@@ -117,8 +761,10 @@ public class FileManagerCLI {
     }
 
     private void displayHelp() {
-        System.out.println("Available commands:");
-        commandHelp.values().forEach(help -> System.out.println("  " + help));
+        out.println("Available commands:");
+        for (String help : commandHelp.values()) {
+            out.println("  " + help);
+        }
     }
 
     private Path resolvePath(String pathStr) {
@@ -126,8 +772,37 @@ public class FileManagerCLI {
         return path.isAbsolute() ? path : currentDirectory.resolve(path);
     }
 
-    @FunctionalInterface
-    private interface CommandFactory {
-        Command createCommand(String[] args);
+    /**
+     * Splits --checksum[=crc32c|sha256] and --verify off the arguments of copy and compress.
+     */
+    private static class DigestOptions {
+        private final List<String> remaining = new ArrayList<>();
+        private DigestAlgorithm algorithm;
+        private boolean verify;
+
+        DigestOptions(String[] args) {
+            for (String arg : args) {
+                if ("--checksum".equals(arg)) {
+                    algorithm = DigestAlgorithm.CRC32C;
+                } else if (arg.startsWith("--checksum=")) {
+                    algorithm = DigestAlgorithm.fromLabel(arg.substring("--checksum=".length()));
+                } else if ("--verify".equals(arg)) {
+                    verify = true;
+                } else {
+                    remaining.add(arg);
+                }
+            }
+            if (verify && algorithm == null) {
+                algorithm = DigestAlgorithm.CRC32C;
+            }
+        }
+
+        boolean isRequested() {
+            return algorithm != null;
+        }
+
+        String[] getRemaining() {
+            return remaining.toArray(new String[0]);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package org.example.ui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Thin client for {@link FileManagerDaemon}: forwards one command line with the current
+ * directory and prints the output as the daemon streams it back.
+ */
+public class FileManagerClient {
+    /**
+     * Returned by {@link #send} when no daemon is listening.
+     */
+    public static final int NOT_LISTENING = -1;
+    // Ends the command output; the exit status follows on its own line
+    static final char STATUS_MARK = '\0';
+
+    private FileManagerClient() {
+    }
+
+    /**
+     * @return the exit status of the command, or {@link #NOT_LISTENING} if no daemon is
+     * listening on socket
+     * @throws IOException if the connection broke before the daemon sent the status
+     */
+    public static int send(Path socket, String[] args, InputStream stdin, PrintStream out) throws IOException {
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            return NOT_LISTENING;
+        }
+        try (channel) {
+            StringBuilder header = new StringBuilder(System.getProperty("user.dir")).append('\n');
+            for (String arg : args) {
+                header.append(arg).append('\n');
+            }
+            header.append('\n');
+            OutputStream request = Channels.newOutputStream(channel);
+            request.write(header.toString().getBytes(StandardCharsets.UTF_8));
+            if (args.length > 1 && "batch".equalsIgnoreCase(args[0]) && "-".equals(args[1])) {
+                stdin.transferTo(request);
+            }
+            channel.shutdownOutput();
+            return receive(Channels.newInputStream(channel), out);
+        }
+    }
+
+    /**
+     * Copies the command output to out up to the status mark.
+     * @return the status that follows the mark
+     */
+    private static int receive(InputStream reply, PrintStream out) throws IOException {
+        byte[] buffer = new byte[8192];
+        ByteArrayOutputStream status = null;
+        int n;
+        while ((n = reply.read(buffer)) != -1) {
+            int from = 0;
+            if (status == null) {
+                int mark = indexOf(buffer, n, (byte) STATUS_MARK);
+                out.write(buffer, 0, mark);
+                out.flush();
+                if (mark == n) {
+                    continue;
+                }
+                status = new ByteArrayOutputStream();
+                from = mark + 1;
+            }
+            status.write(buffer, from, n - from);
+        }
+        String code = status == null ? "" : status.toString(StandardCharsets.UTF_8).trim();
+        if (!code.matches("\\d+")) {
+            throw new EOFException("the daemon closed the connection before the command finished");
+        }
+        return Integer.parseInt(code);
+    }
+
+    private static int indexOf(byte[] buffer, int length, byte value) {
+        for (int i = 0; i < length; i++) {
+            if (buffer[i] == value) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    static boolean isListening(Path socket) {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            return channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package org.example.ui;
+
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+import org.example.metrics.InstrumentedFileOperation;
+import org.example.operations.DefaultFileOperation;
+import org.example.operations.OperationJournal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps one warm process serving CLI commands over a Unix domain socket, so scripted use pays
+ * for JVM start-up, class loading and JIT warm-up once instead of on every command. The file
+ * operation, its caches and the undo journal are shared by all requests.
+ * <p>
+ * The protocol is plain text so any Unix socket client can talk to it: the working directory on
+ * the first line, one argument per line, then an empty line. Whatever follows is the command's
+ * standard input (used by {@code batch -}). The reply is the command output, streamed as it is
+ * produced, then a NUL byte and the exit status on a line of its own: 0 if the command
+ * succeeded, 1 if it or any part of it failed. The daemon closes the connection after that.
+ * <p>
+ * The socket only ever appears under its name with owner-only permissions: it is bound in a
+ * private staging directory and renamed into place. Its directory must belong to the user and
+ * not be writable by others, and connections from other users are refused.
+ * <p>
+ * Metrics of the file operations accumulate over all requests; {@code stats} prints them and
+ * they are published over JMX under {@code org.example.filemanager:type=FileOperation}.
+ */
+public class FileManagerDaemon {
+    private static final Logger logger = Logger.getLogger(FileManagerDaemon.class.getName());
+
+    private final Path socket;
+    private final DefaultFileOperation fileOperation = new DefaultFileOperation();
+    private final InstrumentedFileOperation instrumented = new InstrumentedFileOperation(fileOperation);
+    private final OperationJournal journal = OperationJournal.openDefault();
+    private UserPrincipal owner;
+
+    public FileManagerDaemon(Path socket) {
+        this.socket = socket;
+    }
+
+    /**
+     * Serves requests until the process is stopped.
+     */
+    public void run() throws IOException {
+        if (FileManagerClient.isListening(socket)) {
+            throw new IOException("A daemon is already listening on " + socket);
+        }
+        // Left behind by a daemon that did not shut down cleanly
+        Files.deleteIfExists(socket);
+        Path directory = socket.toAbsolutePath().getParent();
+        createPrivateDirectory(directory);
+        fileOperation.recoverInterruptedMoves();
+        instrumented.getMetrics().registerMBeans();
+
+        ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "daemon-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            bindPrivately(server, directory);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException ignored) {
+                    // Removed again on the next start
+                }
+            }));
+            logger.info("Daemon listening on " + socket);
+            while (true) {
+                SocketChannel client = server.accept();
+                workers.execute(() -> serve(client));
+            }
+        } finally {
+            workers.shutdownNow();
+            Files.deleteIfExists(socket);
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            if (!isOwner(client)) {
+                return;
+            }
+            InputStream in = Channels.newInputStream(client);
+            List<String> header = readHeader(in);
+            PrintStream out = new PrintStream(new BufferedOutputStream(Channels.newOutputStream(client)),
+                    true, StandardCharsets.UTF_8);
+            boolean succeeded = false;
+            if (header.isEmpty()) {
+                out.println("Malformed request");
+            } else {
+                String[] args = header.subList(1, header.size()).toArray(new String[0]);
+                if (args.length > 0 && "navigate".equalsIgnoreCase(args[0])) {
+                    out.println("The navigator needs a terminal; run it without the daemon.");
+                } else {
+                    succeeded = new FileManagerCLI(fileOperation, instrumented, journal, Paths.get(header.get(0)),
+                            out, in).execute(args);
+                }
+            }
+            out.print(FileManagerClient.STATUS_MARK);
+            out.println(succeeded ? 0 : 1);
+            out.flush();
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Daemon request failed", e);
+        }
+    }
+
+    /**
+     * Reads lines up to the empty line that ends the header, byte by byte so that nothing
+     * after it is consumed.
+     */
+    private static List<String> readHeader(InputStream in) throws IOException {
+        List<String> lines = new ArrayList<>();
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b != '\n') {
+                line.write(b);
+                continue;
+            }
+            if (line.size() == 0) {
+                return lines;
+            }
+            lines.add(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+        }
+        if (line.size() > 0) {
+            lines.add(line.toString(StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Binds server to a socket in a staging directory only the user can enter, restricts the
+     * socket to the user and then renames it to its real name, so that it is never reachable
+     * with looser permissions.
+     */
+    private void bindPrivately(ServerSocketChannel server, Path directory) throws IOException {
+        // Created with owner-only permissions where the file system has them
+        Path staging = Files.createTempDirectory(directory, ".daemon");
+        try {
+            owner = Files.getOwner(staging);
+            checkPrivate(directory);
+            Path temporary = staging.resolve("socket");
+            server.bind(UnixDomainSocketAddress.of(temporary));
+            try {
+                Files.setPosixFilePermissions(temporary, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                logger.fine("Cannot restrict permissions of " + temporary);
+            }
+            Files.move(temporary, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staging.resolve("socket"));
+            Files.delete(staging);
+        }
+    }
+
+    private static void createPrivateDirectory(Path directory) throws IOException {
+        try {
+            Files.createDirectories(directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Refuses a socket directory that another user could use to replace the socket.
+     */
+    private void checkPrivate(Path directory) throws IOException {
+        PosixFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(directory, PosixFileAttributes.class);
+        } catch (UnsupportedOperationException e) {
+            return;
+        }
+        if (!attrs.owner().equals(owner)) {
+            throw new IOException("Socket directory " + directory + " belongs to " + attrs.owner().getName()
+                    + ", not " + owner.getName());
+        }
+        Set<PosixFilePermission> permissions = attrs.permissions();
+        if (permissions.contains(PosixFilePermission.GROUP_WRITE) || permissions.contains(PosixFilePermission.OTHERS_WRITE)) {
+            throw new IOException("Socket directory " + directory + " is writable by others ("
+                    + PosixFilePermissions.toString(permissions) + ")");
+        }
+    }
+
+    /**
+     * @return true if the peer runs as the user who owns the daemon; logs anyone else
+     */
+    private boolean isOwner(SocketChannel client) throws IOException {
+        UnixDomainPrincipal peer;
+        try {
+            peer = client.getOption(ExtendedSocketOptions.SO_PEERCRED);
+        } catch (UnsupportedOperationException e) {
+            // Only the socket's permissions keep others out here
+            return true;
+        }
+        if (peer.user().equals(owner)) {
+            return true;
+        }
+        logger.warning("Refused a connection from " + peer.user().getName());
+        return false;
+    }
+}
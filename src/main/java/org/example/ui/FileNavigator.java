@@ -1,5 +1,6 @@
 package org.example.ui;
 
+import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TextColor;
 import com.googlecode.lanterna.graphics.TextGraphics;
@@ -10,18 +11,31 @@ import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.DefaultTerminalFactory;
 import com.googlecode.lanterna.terminal.Terminal;
 import org.example.api.Command;
+import org.example.api.DirectoryEntry;
+import org.example.api.DirectorySize;
 import org.example.api.FileMetadata;
 import org.example.api.FileOperation;
 import org.example.commands.CompressCommand;
-import org.example.exceptions.FileOperationException;
+import org.example.config.AppConfig;
 import org.example.operations.DefaultFileOperation;
+import org.example.operations.DirectorySizeCache;
+import org.example.operations.FileSearch;
+import org.example.operations.PathIndex;
+import org.example.operations.WorkerPool;
+import org.example.utils.GlobExpander;
 
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.PatternSyntaxException;
 import java.util.logging.Logger;
 
 public class FileNavigator implements Command {
@@ -30,29 +44,66 @@ public class FileNavigator implements Command {
     private int selectedIndex = 0;
     private int scrollOffset = 0;
     private Screen screen;
-    private List<Path> currentFiles;
+    private List<DirectoryEntry> currentFiles;
+    private DirectoryListingCache listingCache;
+    private MetadataPrefetcher prefetcher;
+    private SortMode sortMode = SortMode.NAME;
+    private final RenderStats renderStats = new RenderStats();
+    // What each screen row currently shows; null forces a full repaint
+    private String[] paintedRows;
+    // Name search started with '/'; while set, its matches replace the directory listing
+    private SearchResults search;
+    // Answers searches below indexed roots without walking the tree
+    private final PathIndex pathIndex = PathIndex.openDefault();
+    // Recursive directory sizes, shown in place of <DIR> once known
+    private final DirectorySizeCache directorySizes;
+    // Walk started with 'd' below sizingRoot; its totals appear as each subtree finishes
+    private DirectorySizeCache.Measurement sizing;
+    private Path sizingRoot;
+    private static final int CACHED_DIRECTORIES = 16;
+    private static final int PREFETCHED_ENTRIES = 4096;
+    // Rows above and below the window whose metadata is prefetched as well
+    private static final int PREFETCH_MARGIN = 32;
+    private static final long LOADING_REPAINT_MILLIS = 50;
+    private static final int MAX_SEARCH_RESULTS = 100_000;
+    private static final String REGEX_PREFIX = "re:";
     private static final Path LAST_DIR_FILE = Paths.get(System.getProperty("user.home"), ".file_navigator_last_dir");
     private static final Logger logger = Logger.getLogger(FileNavigator.class.getName());
+    private static final DateTimeFormatter MODIFIED_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
 
     public FileNavigator() {
         this.currentDirectory = Paths.get(System.getProperty("user.dir"));
-        this.fileOperation = new DefaultFileOperation(); // Default implementation
+        DefaultFileOperation operation = new DefaultFileOperation(); // Default implementation
+        this.fileOperation = operation;
+        this.directorySizes = operation.getDirectorySizes();
     }
 
 
     @Override
     public boolean execute() throws Exception {
         initializeScreen();
+        listingCache = new DirectoryListingCache(CACHED_DIRECTORIES, sortMode.getOrder());
+        prefetcher = new MetadataPrefetcher(PREFETCHED_ENTRIES);
         try {
             return handleNavigation();
         } finally {
             saveLastDirectory();
+            endSearch();
+            stopSizing();
+            pathIndex.close();
+            prefetcher.close();
+            listingCache.close();
             screen.close();
+            if (AppConfig.renderStats()) {
+                logger.info("Render stats: " + renderStats);
+            }
         }
     }
 
     private void initializeScreen() throws IOException {
-        Terminal terminal = new DefaultTerminalFactory().createTerminal();
+        Terminal terminal = new DefaultTerminalFactory(renderStats.counting(System.out), System.in,
+                Charset.defaultCharset()).createTerminal();
         screen = new TerminalScreen(terminal);
         screen.startScreen();
     }
@@ -61,90 +112,246 @@ public class FileNavigator implements Command {
         while (true) {
             updateFileList();
             drawScreen();
-            KeyStroke key = screen.readInput();
-
-            if (key.getKeyType() == KeyType.EOF) {
-                return false;
+            KeyStroke key = nextKey();
+            // Apply every key that is already queued (e.g. auto-repeat over a slow link)
+            // before painting again, so a burst of keys costs one frame
+            while (key != null) {
+                renderStats.keystroke();
+                Boolean result = handleKey(key);
+                if (result != null) {
+                    return result;
+                }
+                key = screen.pollInput();
             }
+        }
+    }
+
+    /**
+     * @return null to keep navigating, otherwise the result of the navigation
+     */
+    private Boolean handleKey(KeyStroke key) throws IOException {
+        if (key.getKeyType() == KeyType.EOF) {
+            return false;
+        }
 
+        if (search != null) {
             switch (key.getKeyType()) {
-                case ArrowUp -> moveUp();
-                case ArrowDown -> moveDown();
-                case Enter -> handleEnter();
-                case Backspace, Delete -> navigateToParent(); // Handle both keys
-                case Escape -> {
-                    saveLastDirectory();
-                    return true;
+                case Enter -> {
+                    openSearchResult();
+                    return null;
+                }
+                case Escape, Backspace, Delete -> {
+                    endSearch();
+                    updateFileList();
+                    return null;
                 }
                 case Character -> {
-                    if (key.getCharacter() == 'q') {
-                        saveLastDirectory();
-                        return true;
-                    }
-                    if (key.getCharacter() == 'i') {
-                        showFileInfo(currentFiles.get(selectedIndex));
-                    }
-                    if (key.getCharacter() == 'c') {
-                        compressSelected();
+                    if (key.getCharacter() == 's') {
+                        // Matches stay in the order they were found
+                        return null;
                     }
                 }
             }
         }
+
+        switch (key.getKeyType()) {
+            case ArrowUp -> moveUp();
+            case ArrowDown -> moveDown();
+            case Enter -> handleEnter();
+            case Backspace, Delete -> navigateToParent(); // Handle both keys
+            case Escape -> {
+                saveLastDirectory();
+                return true;
+            }
+            case Character -> {
+                if (key.getCharacter() == 'q') {
+                    saveLastDirectory();
+                    return true;
+                }
+                if (key.getCharacter() == 'i' && !currentFiles.isEmpty()) {
+                    showFileInfo(currentFiles.get(selectedIndex));
+                }
+                if (key.getCharacter() == 's') {
+                    cycleSortMode();
+                }
+                if (key.getCharacter() == 'c' && !currentFiles.isEmpty()) {
+                    compressSelected();
+                }
+                if (key.getCharacter() == '/') {
+                    startSearch();
+                }
+                if (key.getCharacter() == 'd') {
+                    startSizing();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Blocks for the next key, except while the current directory is still loading: then it
+     * returns null after a short wait so the caller can repaint the growing listing.
+     */
+    private KeyStroke nextKey() throws IOException {
+        boolean complete = search != null ? search.isDone() : listingCache.isComplete(currentDirectory);
+        if (complete && (sizing == null || sizing.isDone())) {
+            return screen.readInput();
+        }
+        KeyStroke key = screen.pollInput();
+        if (key == null) {
+            try {
+                Thread.sleep(LOADING_REPAINT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return key;
     }
 
     private void updateFileList() throws IOException {
-        currentFiles = Files.list(currentDirectory)
-                .sorted((p1, p2) -> {
-                    boolean d1 = Files.isDirectory(p1);
-                    boolean d2 = Files.isDirectory(p2);
-                    if (d1 && !d2) return -1;
-                    if (!d1 && d2) return 1;
-                    return p1.getFileName().toString()
-                            .compareToIgnoreCase(p2.getFileName().toString());
-                })
-                .collect(Collectors.toList());
+        if (sizing != null && !currentDirectory.startsWith(sizingRoot)) {
+            // Left the measured tree; its totals are of no use here
+            stopSizing();
+        }
+        if (search != null) {
+            currentFiles = search.snapshot();
+            if (selectedIndex >= currentFiles.size()) {
+                selectedIndex = Math.max(0, currentFiles.size() - 1);
+            }
+            return;
+        }
+        // Served from the watch-backed cache, so this is cheap on every keystroke
+        List<DirectoryEntry> listing = listingCache.get(currentDirectory);
+        if (listing != currentFiles && currentFiles != null && !currentFiles.isEmpty()
+                && selectedIndex < currentFiles.size()) {
+            // Entries merged in or added by events shift positions; keep the same entry selected
+            int index = Collections.binarySearch(listing, currentFiles.get(selectedIndex), listingCache.getOrder());
+            if (index >= 0) {
+                selectedIndex = index;
+            }
+        }
+        currentFiles = listing;
+        if (selectedIndex >= currentFiles.size()) {
+            selectedIndex = Math.max(0, currentFiles.size() - 1);
+        }
     }
 
+    /**
+     * Paints only the rows whose text or colours differ from the last frame, e.g. the old and
+     * new selection when moving by one, and skips the refresh when nothing changed at all.
+     */
     private void drawScreen() throws IOException {
-        screen.clear();
-        TextGraphics tg = screen.newTextGraphics();
+        TerminalSize resized = screen.doResizeIfNecessary();
         TerminalSize size = screen.getTerminalSize();
+        if (paintedRows == null || resized != null || paintedRows.length != size.getRows()) {
+            screen.clear();
+            paintedRows = new String[size.getRows()];
+        }
+        TextGraphics tg = screen.newTextGraphics();
+        boolean changed = false;
 
         // Draw header
-        tg.setForegroundColor(TextColor.ANSI.WHITE);
-        tg.putString(0, 0, "Current directory: " + currentDirectory);
-        tg.putString(0, 1, "─".repeat(size.getColumns()));
+        String header;
+        if (search != null) {
+            header = "Search: " + search.pattern + " in " + search.root + "  " + currentFiles.size() + " matches"
+                    + (search.isDone() ? "" : "  searching… " + search.fileSearch.getVisitedEntries() + " entries");
+        } else {
+            String loading = listingCache.isComplete(currentDirectory)
+                    ? "" : "  loading… " + currentFiles.size() + " entries";
+            DirectorySize total = directorySizes.cached(currentDirectory);
+            String sizes = sizing != null && !sizing.isDone() ? "  sizing…"
+                    : total != null ? "  " + humanReadableSize(total.getBytes()) + " in " + total.getFiles() + " files" : "";
+            header = "Current directory: " + currentDirectory + "  [sort: " + sortMode.getLabel() + "]" + loading + sizes;
+        }
+        changed |= paintRow(tg, 0, 0, header, TextColor.ANSI.WHITE, TextColor.ANSI.DEFAULT);
+        changed |= paintRow(tg, 1, 0, "─".repeat(size.getColumns()), TextColor.ANSI.WHITE, TextColor.ANSI.DEFAULT);
 
         // Draw files
         int maxDisplayItems = size.getRows() - 4;
         adjustScrollOffset(maxDisplayItems);
+        prefetcher.prefetch(currentFiles.subList(Math.max(0, scrollOffset - PREFETCH_MARGIN),
+                Math.min(currentFiles.size(), scrollOffset + maxDisplayItems + PREFETCH_MARGIN)));
 
-        for (int i = 0; i < Math.min(maxDisplayItems, currentFiles.size()); i++) {
+        for (int i = 0; i < maxDisplayItems; i++) {
             int fileIndex = i + scrollOffset;
-            if (fileIndex >= currentFiles.size()) break;
-
-            Path file = currentFiles.get(fileIndex);
-            String fileName = file.getFileName().toString();
+            if (fileIndex >= currentFiles.size()) {
+                changed |= paintRow(tg, i + 2, 1, "", TextColor.ANSI.WHITE, TextColor.ANSI.DEFAULT);
+                continue;
+            }
 
+            DirectoryEntry file = currentFiles.get(fileIndex);
+            String name = search != null ? search.root.relativize(file.getPath()).toString() : file.getName();
+            String row = formatRow(file, name, size.getColumns() - 2,
+                    file.isDirectory() ? directorySizes.cached(file.getPath()) : null);
             if (fileIndex == selectedIndex) {
-                tg.setBackgroundColor(TextColor.ANSI.BLUE);
-                tg.setForegroundColor(TextColor.ANSI.WHITE);
+                changed |= paintRow(tg, i + 2, 1, row, TextColor.ANSI.WHITE, TextColor.ANSI.BLUE);
             } else {
-                tg.setBackgroundColor(TextColor.ANSI.DEFAULT);
-                tg.setForegroundColor(Files.isDirectory(file) ?
-                        TextColor.ANSI.CYAN : TextColor.ANSI.WHITE);
+                changed |= paintRow(tg, i + 2, 1, row,
+                        file.isDirectory() ? TextColor.ANSI.CYAN : TextColor.ANSI.WHITE, TextColor.ANSI.DEFAULT);
             }
-
-            tg.putString(1, i + 2, fileName);
-            tg.setBackgroundColor(TextColor.ANSI.DEFAULT);
         }
 
         // Draw footer
-        tg.setForegroundColor(TextColor.ANSI.WHITE);
-        tg.putString(0, size.getRows() - 1,
-                "↑↓:Navigate  Enter:Open  Backspace:Parent  q:Quit  i:Info  c:Compress");
+        changed |= paintRow(tg, size.getRows() - 1, 0, search != null
+                        ? "↑↓:Navigate  Enter:Go to  Esc:Back  q:Quit  i:Info  c:Compress"
+                        : "↑↓:Navigate  Enter:Open  Backspace:Parent  q:Quit  i:Info  c:Compress  s:Sort  /:Search  d:Sizes",
+                TextColor.ANSI.WHITE, TextColor.ANSI.DEFAULT);
 
-        screen.refresh();
+        if (changed) {
+            screen.refresh(Screen.RefreshType.DELTA);
+            renderStats.frame();
+        }
+    }
+
+    /**
+     * Writes one screen row unless it already shows exactly this content.
+     * @return true if the row had to be repainted
+     */
+    private boolean paintRow(TextGraphics tg, int row, int column, String text,
+                             TextColor foreground, TextColor background) {
+        String content = foreground + "/" + background + "/" + column + "/" + text;
+        if (content.equals(paintedRows[row])) {
+            return false;
+        }
+        paintedRows[row] = content;
+        tg.setBackgroundColor(TextColor.ANSI.DEFAULT);
+        tg.fillRectangle(new TerminalPosition(0, row), new TerminalSize(tg.getSize().getColumns(), 1), ' ');
+        tg.setForegroundColor(foreground);
+        tg.setBackgroundColor(background);
+        tg.putString(column, row, text);
+        tg.setBackgroundColor(TextColor.ANSI.DEFAULT);
+        return true;
+    }
+
+    /**
+     * @param contents recursive size of a directory, or null while it is not known
+     */
+    private static String formatRow(DirectoryEntry file, String name, int width, DirectorySize contents) {
+        String details = String.format("%10s  %s",
+                contents != null ? humanReadableSize(contents.getBytes())
+                        : file.isDirectory() ? "<DIR>" : humanReadableSize(file.getSize()),
+                MODIFIED_FORMAT.format(file.getLastModifiedTime().toInstant()));
+        int nameWidth = Math.max(1, width - details.length() - 1);
+        if (name.length() > nameWidth) {
+            name = name.substring(0, nameWidth - 1) + "…";
+        }
+        return String.format("%-" + nameWidth + "s %s", name, details);
+    }
+
+    private static String humanReadableSize(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format("%.1f %sB", bytes / (double) (1L << (unit * 10)), " KMGTPE".charAt(unit));
+    }
+
+    private void cycleSortMode() throws IOException {
+        sortMode = sortMode.next();
+        listingCache.setOrder(sortMode.getOrder());
+        selectedIndex = 0;
+        scrollOffset = 0;
+        updateFileList();
     }
 
     private void adjustScrollOffset(int maxDisplayItems) {
@@ -168,11 +375,12 @@ public class FileNavigator implements Command {
     }
 
     private void handleEnter() throws IOException {
-        Path selected = currentFiles.get(selectedIndex);
-        if (Files.isDirectory(selected)) {
-            currentDirectory = selected;
+        DirectoryEntry selected = currentFiles.get(selectedIndex);
+        if (selected.isDirectory()) {
+            currentDirectory = selected.getPath();
             selectedIndex = 0;
             scrollOffset = 0;
+            updateFileList();
         }
     }
 
@@ -186,29 +394,199 @@ public class FileNavigator implements Command {
         }
     }
 
-    private void showFileInfo(Path file) {
+    /**
+     * Asks for a pattern on the footer row and starts searching below the current directory.
+     * A pattern with glob characters is a glob, one starting with "re:" a regular expression,
+     * anything else is looked for as text in the names.
+     */
+    private void startSearch() throws IOException {
+        String pattern = readLine("Search (glob, text or re:regex): ");
+        if (pattern == null || pattern.isEmpty()) {
+            return;
+        }
+        FileSearch.Mode mode;
+        String expression = pattern;
+        if (pattern.startsWith(REGEX_PREFIX)) {
+            mode = FileSearch.Mode.REGEX;
+            expression = pattern.substring(REGEX_PREFIX.length());
+        } else {
+            mode = GlobExpander.isPattern(pattern) ? FileSearch.Mode.GLOB : FileSearch.Mode.SUBSTRING;
+        }
+        // A new search from the results of another one still starts in the same directory
+        Path root = search != null ? search.root : currentDirectory;
+        endSearch();
         try {
-            FileMetadata metadata = fileOperation.getFileInfo(file);
-            screen.clear();
-            TextGraphics tg = screen.newTextGraphics();
-            
-            int row = 0;
-            tg.putString(0, row++, "File Information:");
-            tg.putString(0, row++, "Name: " + metadata.getPath().getFileName());
-            tg.putString(0, row++, "Size: " + metadata.getSize() + " bytes");
-            tg.putString(0, row++, "Type: " + (metadata.isDirectory() ? "Directory" : "File"));
-            tg.putString(0, row++, "Created: " + metadata.getCreationTime());
-            tg.putString(0, row++, "Modified: " + metadata.getLastModifiedTime());
-            tg.putString(0, row++, "Permissions: " + metadata.getPermissions());
-            tg.putString(0, row++, "\nPress any key to continue...");
-            
-            screen.refresh();
+            search = new SearchResults(root, pattern,
+                    new FileSearch(WorkerPool.shared(), expression, mode, List.of()).useIndex(pathIndex));
+        } catch (PatternSyntaxException e) {
+            logger.fine("Invalid search pattern: " + e.getMessage());
+            return;
+        }
+        selectedIndex = 0;
+        scrollOffset = 0;
+        updateFileList();
+    }
+
+    /**
+     * Measures every directory below the current one in the background. Directories that did
+     * not change since an earlier walk are not listed again.
+     */
+    private void startSizing() {
+        stopSizing();
+        sizingRoot = search != null ? search.root : currentDirectory;
+        sizing = directorySizes.start(sizingRoot, null);
+    }
+
+    private void stopSizing() {
+        if (sizing != null) {
+            sizing.cancel();
+            sizing = null;
+            sizingRoot = null;
+        }
+    }
+
+    private void endSearch() {
+        if (search != null) {
+            search.fileSearch.cancel();
+            search = null;
+            selectedIndex = 0;
+            scrollOffset = 0;
+        }
+    }
+
+    /**
+     * Leaves the search for the selected match: a directory is opened, a file is selected in
+     * its directory.
+     */
+    private void openSearchResult() throws IOException {
+        if (currentFiles.isEmpty()) {
+            return;
+        }
+        DirectoryEntry selected = currentFiles.get(selectedIndex);
+        endSearch();
+        if (selected.isDirectory()) {
+            currentDirectory = selected.getPath();
+            updateFileList();
+            return;
+        }
+        currentDirectory = selected.getPath().getParent();
+        updateFileList();
+        for (int i = 0; i < currentFiles.size(); i++) {
+            if (currentFiles.get(i).getPath().equals(selected.getPath())) {
+                selectedIndex = i;
+                break;
+            }
+        }
+    }
+
+    /**
+     * Edits a line of text on the footer row.
+     * @return the text, or null if the user pressed Escape
+     */
+    private String readLine(String prompt) throws IOException {
+        StringBuilder text = new StringBuilder();
+        int footer = screen.getTerminalSize().getRows() - 1;
+        TextGraphics tg = screen.newTextGraphics();
+        while (true) {
+            paintRow(tg, footer, 0, prompt + text + "█", TextColor.ANSI.YELLOW, TextColor.ANSI.DEFAULT);
+            screen.refresh(Screen.RefreshType.DELTA);
+            KeyStroke key = screen.readInput();
+            switch (key.getKeyType()) {
+                case Enter -> {
+                    return text.toString();
+                }
+                case Escape, EOF -> {
+                    return null;
+                }
+                case Backspace -> {
+                    if (text.length() > 0) {
+                        text.setLength(text.length() - 1);
+                    }
+                }
+                case Character -> text.append(key.getCharacter());
+                default -> {
+                }
+            }
+        }
+    }
+
+    /**
+     * Shows prefetched metadata at once. A directory's recursive size is measured in the
+     * background and painted when its walk is done; until then the last known total is shown.
+     * Leaving the page, with Escape or any other key, cancels the walk.
+     */
+    private void showFileInfo(DirectoryEntry entry) {
+        try {
+            FileMetadata metadata = prefetcher.get(entry);
+            if (metadata == null) {
+                // Not prefetched yet: one lookup, the recursive size is measured below
+                metadata = FileMetadata.read(entry.getPath());
+            }
+            if (metadata.isDirectory()) {
+                DirectorySize known = directorySizes.cached(entry.getPath());
+                paintFileInfo(known != null ? metadata.withContents(known) : metadata, true);
+                DirectorySizeCache.Measurement measurement = directorySizes.start(entry.getPath(), null);
+                if (!awaitMeasurement(measurement)) {
+                    measurement.cancel();
+                    return;
+                }
+                try {
+                    metadata = metadata.withContents(measurement.join());
+                } catch (IOException e) {
+                    logger.fine("Cannot measure " + entry.getPath() + ": " + e.getMessage());
+                }
+            }
+            paintFileInfo(metadata, false);
             screen.readInput();
-        } catch (IOException | FileOperationException e) {
+        } catch (IOException e) {
             // Handle error
+        } finally {
+            // The info page covered the whole screen
+            paintedRows = null;
         }
     }
 
+    /**
+     * Waits for measurement while watching the keyboard.
+     * @return true once the walk is done, false if a key was pressed first
+     */
+    private boolean awaitMeasurement(DirectorySizeCache.Measurement measurement) throws IOException {
+        while (!measurement.isDone()) {
+            if (screen.pollInput() != null) {
+                return false;
+            }
+            try {
+                Thread.sleep(LOADING_REPAINT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void paintFileInfo(FileMetadata metadata, boolean measuring) throws IOException {
+        screen.clear();
+        TextGraphics tg = screen.newTextGraphics();
+
+        int row = 0;
+        tg.putString(0, row++, "File Information:");
+        tg.putString(0, row++, "Name: " + metadata.getPath().getFileName());
+        tg.putString(0, row++, "Size: " + (metadata.getContents() != null || !metadata.isDirectory()
+                ? metadata.getSize() + " bytes" : "") + (measuring ? "  measuring…" : ""));
+        if (metadata.getContents() != null) {
+            tg.putString(0, row++, "Contents: " + metadata.getContents().getFiles() + " files, "
+                    + (metadata.getContents().getDirectories() - 1) + " directories");
+        }
+        tg.putString(0, row++, "Type: " + (metadata.isDirectory() ? "Directory" : "File"));
+        tg.putString(0, row++, "Created: " + metadata.getCreationTime());
+        tg.putString(0, row++, "Modified: " + metadata.getLastModifiedTime());
+        tg.putString(0, row++, "Permissions: " + metadata.getPermissions());
+        tg.putString(0, row++, "\nPress any key to continue...");
+
+        screen.refresh();
+    }
+
     private void saveLastDirectory() {
         try {
             Path lastDirFile = Paths.get(System.getProperty("user.home"), ".file_navigator_last_dir");
@@ -219,12 +597,54 @@ public class FileNavigator implements Command {
     }
 
     private void compressSelected() throws IOException {
-        Path selected = currentFiles.get(selectedIndex);
-        Path target = Paths.get(selected.toString());
+        Path target = currentFiles.get(selectedIndex).getPath();
         new CompressCommand(fileOperation, target).execute();
+        // Do not wait for the watch event, the new archive should show up right away
+        listingCache.invalidate(currentDirectory);
         updateFileList();
     }
 
+    /**
+     * Matches of a running or finished search, collected from the worker threads.
+     */
+    private static class SearchResults {
+        final Path root;
+        final String pattern;
+        final FileSearch fileSearch;
+        private final ForkJoinTask<Void> task;
+        private final List<DirectoryEntry> matches = new ArrayList<>();
+        private List<DirectoryEntry> snapshot = List.of();
+
+        SearchResults(Path root, String pattern, FileSearch fileSearch) {
+            this.root = root;
+            this.pattern = pattern;
+            this.fileSearch = fileSearch;
+            this.task = fileSearch.start(root, this::add);
+        }
+
+        private synchronized void add(DirectoryEntry entry) {
+            if (matches.size() < MAX_SEARCH_RESULTS) {
+                matches.add(entry);
+            } else {
+                fileSearch.cancel();
+            }
+        }
+
+        boolean isDone() {
+            return task.isDone();
+        }
+
+        /**
+         * @return the matches so far; the same instance until more arrive
+         */
+        synchronized List<DirectoryEntry> snapshot() {
+            if (snapshot.size() != matches.size()) {
+                snapshot = List.copyOf(matches);
+            }
+            return snapshot;
+        }
+    }
+
 //    @Override
 //    public String getDescription() {
 //        return "Interactive file navigator";
@@ -0,0 +1,121 @@
+package org.example.ui;
+
+import org.example.api.DirectoryEntry;
+import org.example.api.FileMetadata;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Reads the {@link FileMetadata} of the rows around the visible window in the background, so
+ * that the info page opens without touching the file system. On a slow network mount the
+ * lookups wait on a few daemon threads instead of the key loop.
+ * <p>
+ * Results are kept for the most recently used paths and are valid as long as the listing
+ * still reports the same modification time. A lookup that failed is remembered the same way and
+ * not repeated on every repaint until the entry changes. Lookups for rows that scrolled away are
+ * cancelled before they start.
+ */
+class MetadataPrefetcher implements Closeable {
+    private static final int THREADS = 4;
+
+    private final Map<Path, FileMetadata> cache;
+    // Modification time the listing reported for paths whose lookup failed
+    private final Map<Path, FileTime> failed;
+    private final Map<Path, Future<?>> pending = new HashMap<>();
+    private final ExecutorService executor;
+
+    MetadataPrefetcher(int capacity) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, FileMetadata> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.failed = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, FileTime> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            Thread thread = new Thread(runnable, "metadata-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Makes entries the rows to prefetch, replacing the previous ones.
+     */
+    synchronized void prefetch(List<DirectoryEntry> entries) {
+        Set<Path> wanted = new HashSet<>();
+        for (DirectoryEntry entry : entries) {
+            wanted.add(entry.getPath());
+        }
+        for (Iterator<Map.Entry<Path, Future<?>>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Path, Future<?>> lookup = it.next();
+            if (!wanted.contains(lookup.getKey())) {
+                lookup.getValue().cancel(false);
+                it.remove();
+            }
+        }
+        for (DirectoryEntry entry : entries) {
+            Path path = entry.getPath();
+            if (!pending.containsKey(path) && get(entry) == null
+                    && !entry.getLastModifiedTime().equals(failed.get(path))) {
+                FileTime listed = entry.getLastModifiedTime();
+                pending.put(path, executor.submit(() -> load(path, listed)));
+            }
+        }
+    }
+
+    /**
+     * @return the prefetched metadata of entry, or null if it is not loaded yet or entry has
+     * been modified since
+     */
+    synchronized FileMetadata get(DirectoryEntry entry) {
+        FileMetadata metadata = cache.get(entry.getPath());
+        return metadata != null && metadata.getLastModifiedTime().equals(entry.getLastModifiedTime())
+                ? metadata : null;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param listed modification time the listing reported, under which a failure is kept
+     */
+    private void load(Path path, FileTime listed) {
+        FileMetadata metadata;
+        try {
+            metadata = FileMetadata.read(path);
+        } catch (IOException e) {
+            // Gone or unreadable; the info page reports it when asked
+            metadata = null;
+        }
+        synchronized (this) {
+            if (metadata != null) {
+                cache.put(path, metadata);
+                failed.remove(path);
+            } else {
+                failed.put(path, listed);
+            }
+            pending.remove(path);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.ui;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts keystrokes, frames and terminal output bytes of a navigator session, to show what a
+ * keystroke costs on the wire.
+ */
+class RenderStats {
+    private long keystrokes;
+    private long frames;
+    private long bytes;
+
+    /**
+     * @return out wrapped so that everything written to the terminal is counted
+     */
+    OutputStream counting(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                bytes++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                bytes += len;
+            }
+        };
+    }
+
+    void keystroke() {
+        keystrokes++;
+    }
+
+    void frame() {
+        frames++;
+    }
+
+    @Override
+    public String toString() {
+        double perKey = Math.max(1, keystrokes);
+        return String.format("%d keystrokes, %d frames, %d bytes (%.2f frames/key, %.0f bytes/key)",
+                keystrokes, frames, bytes, frames / perKey, bytes / perKey);
+    }
+}
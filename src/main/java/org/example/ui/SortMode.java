@@ -0,0 +1,38 @@
+package org.example.ui;
+
+import org.example.api.DirectoryEntry;
+
+import java.util.Comparator;
+
+/**
+ * Orders for the navigator listing. Directories always come first; ties fall back to the name
+ * so that the order is total and stable across refreshes.
+ */
+enum SortMode {
+    NAME("name", Comparator.comparing(DirectoryEntry::getName, String.CASE_INSENSITIVE_ORDER)),
+    SIZE("size", Comparator.comparingLong(DirectoryEntry::getSize).reversed()),
+    MODIFIED("modified", Comparator.comparing(DirectoryEntry::getLastModifiedTime).reversed());
+
+    private final String label;
+    private final Comparator<DirectoryEntry> order;
+
+    SortMode(String label, Comparator<DirectoryEntry> key) {
+        this.label = label;
+        this.order = Comparator.comparing((DirectoryEntry e) -> !e.isDirectory())
+                .thenComparing(key)
+                .thenComparing(DirectoryEntry::getName, String.CASE_INSENSITIVE_ORDER)
+                .thenComparing(DirectoryEntry::getName);
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    Comparator<DirectoryEntry> getOrder() {
+        return order;
+    }
+
+    SortMode next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
@@ -0,0 +1,255 @@
+package org.example.utils;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Expands command line arguments that contain glob patterns ({@link PathMatcher} syntax, e.g.
+ * {@code logs/*.log} or {@code src/**.java}). Patterns that share a base directory are matched
+ * in a single scan of it, so a pattern matching 50k files costs one directory walk rather than
+ * one lookup per file. Unlike a shell, {@code *} also matches names starting with a dot.
+ */
+public class GlobExpander {
+    private static final String META_CHARACTERS = "*?[{";
+
+    private GlobExpander() {
+    }
+
+    public static boolean isPattern(String argument) {
+        for (int i = 0; i < argument.length(); i++) {
+            if (META_CHARACTERS.indexOf(argument.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Translates a glob with {@link PathMatcher} syntax into an equivalent regular expression,
+     * for matching names that are held as strings rather than paths.
+     */
+    public static String toRegex(String glob) {
+        StringBuilder regex = new StringBuilder(glob.length() + 16);
+        boolean inGroup = false;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            switch (c) {
+                case '*' -> {
+                    if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                }
+                case '?' -> regex.append("[^/]");
+                case '{' -> {
+                    regex.append("(?:");
+                    inGroup = true;
+                }
+                case '}' -> {
+                    regex.append(inGroup ? ")" : "\\}");
+                    inGroup = false;
+                }
+                case ',' -> regex.append(inGroup ? "|" : ",");
+                case '[' -> {
+                    int end = glob.indexOf(']', i + 2);
+                    if (end < 0) {
+                        throw new PatternSyntaxException("Missing ']'", glob, i);
+                    }
+                    regex.append('[');
+                    int start = i + 1;
+                    if (glob.charAt(start) == '!') {
+                        regex.append('^');
+                        start++;
+                    }
+                    for (int j = start; j < end; j++) {
+                        char member = glob.charAt(j);
+                        regex.append(member == '-' || Character.isLetterOrDigit(member) ? "" : "\\").append(member);
+                    }
+                    regex.append(']');
+                    i = end;
+                }
+                case '\\' -> {
+                    if (++i < glob.length()) {
+                        appendLiteral(regex, glob.charAt(i));
+                    }
+                }
+                default -> appendLiteral(regex, c);
+            }
+        }
+        return regex.toString();
+    }
+
+    private static void appendLiteral(StringBuilder regex, char c) {
+        if ("\\.[]{}()*+-?^$|&".indexOf(c) >= 0) {
+            regex.append('\\');
+        }
+        regex.append(c);
+    }
+
+    /**
+     * @param base directory relative arguments are resolved against
+     * @return the directory a pattern is matched in, or the path a plain argument names; every
+     * match of the argument lies in or below it
+     */
+    public static Path scope(Path base, String argument) {
+        return isPattern(argument) ? Pattern.parse(base, argument).root : base.resolve(argument).normalize();
+    }
+
+    /**
+     * @param base directory relative arguments are resolved against
+     * @return the matches in argument order, each pattern's matches sorted, without duplicates
+     */
+    public static Expansion expand(Path base, List<String> arguments) throws IOException {
+        // Patterns grouped by the directory that has to be scanned for them
+        Map<Path, List<Pattern>> byRoot = new LinkedHashMap<>();
+        List<Pattern> patterns = new ArrayList<>();
+        for (String argument : arguments) {
+            if (!isPattern(argument)) {
+                continue;
+            }
+            Pattern pattern = Pattern.parse(base, argument);
+            patterns.add(pattern);
+            byRoot.computeIfAbsent(pattern.root, root -> new ArrayList<>()).add(pattern);
+        }
+        for (Map.Entry<Path, List<Pattern>> entry : byRoot.entrySet()) {
+            scan(entry.getKey(), entry.getValue());
+        }
+
+        Set<Path> paths = new LinkedHashSet<>();
+        List<String> unmatched = new ArrayList<>();
+        Map<String, Pattern> byArgument = new HashMap<>();
+        for (Pattern pattern : patterns) {
+            byArgument.put(pattern.argument, pattern);
+        }
+        for (String argument : arguments) {
+            Pattern pattern = byArgument.get(argument);
+            if (pattern == null) {
+                Path path = base.resolve(argument).normalize();
+                paths.add(path);
+            } else if (pattern.matches.isEmpty()) {
+                unmatched.add(argument);
+            } else {
+                Collections.sort(pattern.matches);
+                paths.addAll(pattern.matches);
+            }
+        }
+        return new Expansion(new ArrayList<>(paths), unmatched);
+    }
+
+    private static void scan(Path root, List<Pattern> patterns) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        int depth = 0;
+        for (Pattern pattern : patterns) {
+            depth = Math.max(depth, pattern.depth);
+        }
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), depth, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (!dir.equals(root)) {
+                    match(dir);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                match(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Unreadable entries simply do not match
+                return FileVisitResult.CONTINUE;
+            }
+
+            private void match(Path path) {
+                Path relative = root.relativize(path);
+                for (Pattern pattern : patterns) {
+                    if (pattern.matcher.matches(relative)) {
+                        pattern.matches.add(path);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Result of {@link #expand}: the paths, and the patterns that matched nothing.
+     */
+    public static class Expansion {
+        private final List<Path> paths;
+        private final List<String> unmatched;
+
+        Expansion(List<Path> paths, List<String> unmatched) {
+            this.paths = paths;
+            this.unmatched = unmatched;
+        }
+
+        public List<Path> getPaths() {
+            return paths;
+        }
+
+        public List<String> getUnmatched() {
+            return unmatched;
+        }
+    }
+
+    private static class Pattern {
+        final String argument;
+        final Path root;
+        final PathMatcher matcher;
+        // How deep below root a match can be
+        final int depth;
+        final List<Path> matches = new ArrayList<>();
+
+        private Pattern(String argument, Path root, String glob) {
+            this.argument = argument;
+            this.root = root;
+            this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            this.depth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("/").length;
+        }
+
+        /**
+         * Splits the argument into the literal directory before the first wildcard and the glob
+         * relative to it.
+         */
+        static Pattern parse(Path base, String argument) {
+            int firstMeta = 0;
+            while (META_CHARACTERS.indexOf(argument.charAt(firstMeta)) < 0) {
+                firstMeta++;
+            }
+            int separator = argument.lastIndexOf('/', firstMeta);
+            Path root;
+            if (separator < 0) {
+                root = base;
+            } else if (separator == 0) {
+                root = base.getRoot();
+            } else {
+                root = base.resolve(argument.substring(0, separator));
+            }
+            return new Pattern(argument, root.normalize(), argument.substring(separator + 1));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.operations;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ParallelZipWriterTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void archiveReadsBackWithContentAndPermissions() throws Exception {
+        Path source = dir.resolve("src");
+        Files.createDirectories(source.resolve("sub"));
+        byte[] text = "hello zip\n".repeat(1000).getBytes();
+        Files.write(source.resolve("notes.txt"), text);
+        Files.write(source.resolve("sub/run.sh"), "#!/bin/sh\n".getBytes());
+        Files.setPosixFilePermissions(source.resolve("sub/run.sh"), PosixFilePermissions.fromString("rwxr-x---"));
+        Path archive = dir.resolve("src.zip");
+
+        new ParallelZipWriter(ForkJoinPool.commonPool(), Deflater.DEFAULT_COMPRESSION).write(source, archive);
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(2, zip.size());
+            assertArrayEquals(text, read(zip, "notes.txt"));
+            assertArrayEquals("#!/bin/sh\n".getBytes(), read(zip, "sub/run.sh"));
+        }
+
+        // Info-ZIP restores the mode from the external attributes
+        assumeTrue(isInstalled("unzip"));
+        Path extracted = dir.resolve("out");
+        Process unzip = new ProcessBuilder("unzip", "-q", archive.toString(), "-d", extracted.toString())
+                .redirectErrorStream(true).start();
+        assertEquals(true, unzip.waitFor(30, TimeUnit.SECONDS));
+        assertEquals(0, unzip.exitValue());
+        assertEquals(mode(source.resolve("notes.txt")), mode(extracted.resolve("notes.txt")));
+        assertEquals("rwxr-x---", mode(extracted.resolve("sub/run.sh")));
+        assertArrayEquals(text, Files.readAllBytes(extracted.resolve("notes.txt")));
+    }
+
+    private static byte[] read(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertNotNull(entry, name);
+        try (InputStream in = zip.getInputStream(entry)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static String mode(Path file) throws IOException {
+        return PosixFilePermissions.toString(Files.getPosixFilePermissions(file));
+    }
+
+    private static boolean isInstalled(String command) {
+        try {
+            return new ProcessBuilder(command, "-v").start().waitFor(10, TimeUnit.SECONDS);
+        } catch (IOException | InterruptedException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.ui;
+
+import org.example.api.DirectoryEntry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DirectoryListingCacheTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void deleteThenCreateInOneBatchKeepsTheFile() throws Exception {
+        Files.writeString(dir.resolve("x.txt"), "saved again");
+
+        Map<Path, DirectoryEntry> changes = DirectoryListingCache.readChanges(dir, List.of(
+                event(StandardWatchEventKinds.ENTRY_DELETE, "x.txt"),
+                event(StandardWatchEventKinds.ENTRY_CREATE, "x.txt"),
+                event(StandardWatchEventKinds.ENTRY_DELETE, "gone.txt")));
+
+        assertNotNull(changes.get(dir.resolve("x.txt")));
+        assertTrue(changes.containsKey(dir.resolve("gone.txt")));
+        assertNull(changes.get(dir.resolve("gone.txt")));
+    }
+
+    @Test
+    void recreatedFileStaysListedAmongOtherCreates() throws Exception {
+        Path file = dir.resolve("x.txt");
+        Files.writeString(file, "first");
+        try (DirectoryListingCache cache = new DirectoryListingCache(4,
+                Comparator.comparing((DirectoryEntry entry) -> entry.getPath().toString()))) {
+            awaitListed(cache, file);
+
+            for (int i = 0; i < 200; i++) {
+                Files.writeString(dir.resolve("other" + i), "x");
+            }
+            Files.delete(file);
+            Files.writeString(file, "second");
+            for (int i = 200; i < 400; i++) {
+                Files.writeString(dir.resolve("other" + i), "x");
+            }
+
+            awaitListed(cache, dir.resolve("other399"));
+            assertTrue(listed(cache, file), "x.txt exists but is missing from the listing");
+        }
+    }
+
+    private void awaitListed(DirectoryListingCache cache, Path file) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (!listed(cache, file) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(listed(cache, file), file + " was never listed");
+        // Give events queued after it time to arrive as well
+        Thread.sleep(200);
+    }
+
+    private boolean listed(DirectoryListingCache cache, Path file) throws Exception {
+        return cache.get(dir).stream().anyMatch(entry -> entry.getPath().equals(file));
+    }
+
+    private static WatchEvent<Path> event(WatchEvent.Kind<Path> kind, String name) {
+        return new WatchEvent<>() {
+            @Override
+            public Kind<Path> kind() {
+                return kind;
+            }
+
+            @Override
+            public int count() {
+                return 1;
+            }
+
+            @Override
+            public Path context() {
+                return Path.of(name);
+            }
+        };
+    }
+}